@@ -13,6 +13,7 @@ plugins {
     id("java-library")
     id("io.freefair.lombok") version "8.0.1"
     id("maven-publish")
+    id("me.champeau.jmh") version "0.7.1"
 }
 
 group = "de.mickare.jcp"
@@ -43,6 +44,13 @@ tasks.test {
     useJUnitPlatform()
 }
 
+jmh {
+    jmhVersion.set("1.36")
+    // Report allocations (gc.alloc.rate.norm in bytes/op) next to the timings
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
+
 publishing {
     publications {
         register<MavenPublication>("gpr") {
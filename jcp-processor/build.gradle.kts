@@ -0,0 +1,57 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+
+plugins {
+    id("java-library")
+    id("maven-publish")
+}
+
+group = "de.mickare.jcp"
+version = rootProject.version
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    testImplementation(project(":"))
+    testImplementation("org.junit.jupiter:junit-jupiter:5.9.1")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_16
+    targetCompatibility = JavaVersion.VERSION_16
+
+    withSourcesJar()
+    withJavadocJar()
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
+
+publishing {
+    publications {
+        register<MavenPublication>("gpr") {
+            from(components["java"])
+        }
+    }
+    repositories {
+        maven {
+            name = "GitHubPackages"
+            url = uri("https://maven.pkg.github.com/mickare/jcp")
+            credentials {
+                username = project.findProperty("gpr.user") as String? ?: System.getenv("USERNAME")
+                password = project.findProperty("gpr.key") as String? ?: System.getenv("TOKEN")
+            }
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Generates a {@code de.mickare.jcp.ICommandBinder} for every concrete command class, so that pipelines can create
+ * commands and assign their option and argument fields without reflection. The binder lists the fields with their
+ * annotation values, so that the builder does not scan the command class. Private fields are bound through method
+ * handles of the binder's lookup, final fields are left to reflection.
+ */
+@SupportedAnnotationTypes("*")
+public class BinderProcessor extends AbstractProcessor {
+    public static final String BINDER_SUFFIX = "_JcpBinder";
+
+    private static final String COMMAND = "de.mickare.jcp.ICommand";
+    private static final String BINDER = "de.mickare.jcp.ICommandBinder";
+    private static final String ACCESSOR = "de.mickare.jcp.FieldAccessor";
+    private static final String BINDING = BINDER + ".Binding";
+    private static final String OPTION = "de.mickare.jcp.Option";
+    private static final String ARGUMENT = "de.mickare.jcp.Argument";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        var command = processingEnv.getElementUtils().getTypeElement(COMMAND);
+        if (command == null) {
+            return false;
+        }
+        var commandType = processingEnv.getTypeUtils().erasure(command.asType());
+        for (var type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            processType(type, commandType);
+        }
+        return false;
+    }
+
+    private void processType(TypeElement type, TypeMirror commandType) {
+        for (var nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            processType(nested, commandType);
+        }
+        if (type.getKind() != ElementKind.CLASS) return;
+        var types = processingEnv.getTypeUtils();
+        if (!types.isAssignable(types.erasure(type.asType()), commandType)) return;
+        if (!isInstantiable(type)) return;
+        try {
+            writeBinder(type);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write command binder: " + e.getMessage(), type);
+        }
+    }
+
+    private static boolean isInstantiable(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) return false;
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) return false;
+            var nesting = ((TypeElement) e).getNestingKind();
+            if (nesting == NestingKind.LOCAL || nesting == NestingKind.ANONYMOUS) return false;
+            if (nesting == NestingKind.MEMBER && !e.getModifiers().contains(Modifier.STATIC)) return false;
+        }
+        return ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .anyMatch(c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE));
+    }
+
+    private static AnnotationMirror getParameterAnnotation(VariableElement field) {
+        for (var annotation : field.getAnnotationMirrors()) {
+            var name = ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (name.equals(OPTION) || name.equals(ARGUMENT)) return annotation;
+        }
+        return null;
+    }
+
+    // Whether the generated binder in the given package can name the type
+    private boolean isReferenceable(TypeElement type, PackageElement binderPackage) {
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) return false;
+        }
+        if (processingEnv.getElementUtils().getPackageOf(type).equals(binderPackage)) {
+            return true;
+        }
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (!e.getModifiers().contains(Modifier.PUBLIC)) return false;
+        }
+        return true;
+    }
+
+    private boolean isReferenceable(TypeMirror type, PackageElement binderPackage) {
+        switch (type.getKind()) {
+            case DECLARED:
+                return isReferenceable((TypeElement) ((DeclaredType) type).asElement(), binderPackage);
+            case ARRAY:
+                return isReferenceable(((ArrayType) type).getComponentType(), binderPackage);
+            case TYPEVAR:
+                return isReferenceable(processingEnv.getTypeUtils().erasure(type), binderPackage);
+            default:
+                return type.getKind().isPrimitive();
+        }
+    }
+
+    private boolean isAssignable(VariableElement field, TypeElement declaring, PackageElement binderPackage) {
+        var modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.FINAL)
+                || modifiers.contains(Modifier.STATIC)) {
+            return false;
+        }
+        if (!isReferenceable(declaring, binderPackage)) return false;
+        return processingEnv.getElementUtils().getPackageOf(declaring).equals(binderPackage)
+                || modifiers.contains(Modifier.PUBLIC);
+    }
+
+    /**
+     * Option or argument field of the command.
+     */
+    private static final class Parameter {
+        private final TypeElement declaring;
+        private final VariableElement field;
+        private final AnnotationMirror annotation;
+        private String accessor = null;
+
+        private Parameter(TypeElement declaring, VariableElement field, AnnotationMirror annotation) {
+            this.declaring = declaring;
+            this.field = field;
+            this.annotation = annotation;
+        }
+
+        private String getAnnotationName() {
+            return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+        }
+    }
+
+    // Parameters in the order of Class#getDeclaredFields, starting with the topmost superclass
+    private static List<Parameter> collectParameters(TypeElement type) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeMirror t = type.asType(); t.getKind() == TypeKind.DECLARED; ) {
+            var declaring = (TypeElement) ((DeclaredType) t).asElement();
+            hierarchy.add(0, declaring);
+            t = declaring.getSuperclass();
+        }
+        List<Parameter> result = new ArrayList<>();
+        for (var declaring : hierarchy) {
+            for (var field : ElementFilter.fieldsIn(declaring.getEnclosedElements())) {
+                var annotation = getParameterAnnotation(field);
+                if (annotation != null) result.add(new Parameter(declaring, field, annotation));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Escapes '_' as "_1" and '$' as "_0" like {@code ICommandBinder.mangle}, so that e.g. {@code Outer$Inner} and
+     * {@code Outer_Inner} get different binder names.
+     */
+    static String mangle(String binaryName) {
+        var result = new StringBuilder(binaryName.length() + 8);
+        for (int i = 0; i < binaryName.length(); ++i) {
+            char c = binaryName.charAt(i);
+            if (c == '_') result.append("_1");
+            else if (c == '$') result.append("_0");
+            else result.append(c);
+        }
+        return result.toString();
+    }
+
+    private String getBinderSimpleName(TypeElement type) {
+        var binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        var packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        if (!packageName.isEmpty()) {
+            binaryName = binaryName.substring(packageName.length() + 1);
+        }
+        return mangle(binaryName) + BINDER_SUFFIX;
+    }
+
+    private String typeName(TypeMirror type) {
+        switch (type.getKind()) {
+            case DECLARED:
+                return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            case ARRAY:
+                return typeName(((ArrayType) type).getComponentType()) + "[]";
+            case TYPEVAR:
+                return typeName(processingEnv.getTypeUtils().erasure(type));
+            default:
+                if (type.getKind().isPrimitive()) {
+                    return type.getKind().name().toLowerCase();
+                }
+                throw new IllegalArgumentException("Unsupported field type " + type);
+        }
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    // Java source of an annotation value, or null if the binder can not name it
+    private String literal(AnnotationValue value, TypeMirror type, PackageElement binderPackage) {
+        var v = value.getValue();
+        if (v instanceof TypeMirror) {
+            return isReferenceable((TypeMirror) v, binderPackage) ? typeName((TypeMirror) v) + ".class" : null;
+        }
+        if (v instanceof VariableElement) {
+            var constant = (VariableElement) v;
+            return isReferenceable(constant.asType(), binderPackage)
+                    ? typeName(constant.asType()) + "." + constant.getSimpleName()
+                    : null;
+        }
+        if (v instanceof List) {
+            var componentType = ((ArrayType) type).getComponentType();
+            var elements = new StringJoiner(", ", "new " + typeName(componentType) + "[]{", "}");
+            for (var element : (List<?>) v) {
+                var text = literal((AnnotationValue) element, componentType, binderPackage);
+                if (text == null) return null;
+                elements.add(text);
+            }
+            return elements.toString();
+        }
+        if (v instanceof AnnotationMirror) {
+            return null;
+        }
+        return processingEnv.getElementUtils().getConstantExpression(v);
+    }
+
+    // Arguments of ICommandBinder.Binding.of, or null if the binder can not name all values
+    private String bindingArguments(Parameter param, PackageElement binderPackage) {
+        if (!isReferenceable(param.declaring, binderPackage)) return null;
+        var args = new StringJoiner(", ");
+        args.add(param.getAnnotationName() + ".class");
+        args.add(param.declaring.getQualifiedName() + ".class");
+        args.add(processingEnv.getElementUtils().getConstantExpression(param.field.getSimpleName().toString()));
+        args.add(param.accessor != null ? param.accessor : "null");
+        for (var entry : param.annotation.getElementValues().entrySet()) {
+            var text = literal(entry.getValue(), entry.getKey().getReturnType(), binderPackage);
+            if (text == null) return null;
+            args.add(processingEnv.getElementUtils().getConstantExpression(entry.getKey().getSimpleName().toString()));
+            args.add(text);
+        }
+        return args.toString();
+    }
+
+    private void writeBinder(TypeElement type) throws IOException {
+        var binderPackage = processingEnv.getElementUtils().getPackageOf(type);
+        var simpleName = getBinderSimpleName(type);
+        var qualifiedName = binderPackage.isUnnamed()
+                ? simpleName
+                : binderPackage.getQualifiedName() + "." + simpleName;
+        var commandName = type.getQualifiedName().toString();
+        var parameters = collectParameters(type);
+
+        var file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+        try (var out = new PrintWriter(file.openWriter())) {
+            out.println("// Generated by " + BinderProcessor.class.getName() + ". Do not edit.");
+            if (!binderPackage.isUnnamed()) {
+                out.println("package " + binderPackage.getQualifiedName() + ";");
+                out.println();
+            }
+            out.println("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+            out.println("public final class " + simpleName + " implements " + BINDER + "<" + commandName + "> {");
+
+            int index = 0;
+            for (var param : parameters) {
+                var declaringName = param.declaring.getQualifiedName().toString();
+                var fieldName = param.field.getSimpleName().toString();
+                var fieldType = param.field.asType();
+                var modifiers = param.field.getModifiers();
+                var accessor = "FIELD_" + index;
+                if (isAssignable(param.field, param.declaring, binderPackage)) {
+                    var target = "((" + declaringName + ") obj)." + fieldName;
+                    out.println();
+                    out.println("    private static final " + ACCESSOR + " " + accessor + " = new " + ACCESSOR + "() {");
+                    out.println("        @Override");
+                    out.println("        public Object get(Object obj) {");
+                    out.println("            return " + target + ";");
+                    out.println("        }");
+                    out.println();
+                    out.println("        @Override");
+                    out.println("        public void set(Object obj, Object value) {");
+                    out.println("            " + target + " = (" + typeName(fieldType) + ") value;");
+                    out.println("        }");
+                    if (fieldType.getKind().isPrimitive()) {
+                        var primitive = typeName(fieldType);
+                        out.println();
+                        out.println("        @Override");
+                        out.println("        public void set" + capitalize(primitive) + "(Object obj, " + primitive + " value) {");
+                        out.println("            " + target + " = value;");
+                        out.println("        }");
+                    }
+                    out.println("    };");
+                } else if (!modifiers.contains(Modifier.FINAL) && !modifiers.contains(Modifier.STATIC)
+                        && isReferenceable(param.declaring, binderPackage) && isReferenceable(fieldType, binderPackage)) {
+                    // Private fields and fields of other packages are bound through the lookup of this binder
+                    out.println();
+                    out.println("    private static final " + ACCESSOR + " " + accessor + " = " + ACCESSOR + ".of("
+                            + "java.lang.invoke.MethodHandles.lookup(), " + declaringName + ".class, \"" + fieldName
+                            + "\", " + typeName(fieldType) + ".class);");
+                } else {
+                    continue;
+                }
+                param.accessor = accessor;
+                index++;
+            }
+
+            List<String> options = new ArrayList<>();
+            List<String> arguments = new ArrayList<>();
+            boolean listed = true;
+            for (var param : parameters) {
+                var args = bindingArguments(param, binderPackage);
+                if (args == null) {
+                    listed = false;
+                    break;
+                }
+                (param.getAnnotationName().equals(OPTION) ? options : arguments).add(args);
+            }
+            if (listed) {
+                writeBindings(out, "OPTIONS", OPTION, options);
+                writeBindings(out, "ARGUMENTS", ARGUMENT, arguments);
+            }
+
+            out.println();
+            out.println("    @Override");
+            out.println("    public Class<" + commandName + "> getCommandClass() {");
+            out.println("        return " + commandName + ".class;");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + commandName + " newInstance() {");
+            out.println("        return new " + commandName + "();");
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public " + ACCESSOR + " getAccessor(Class<?> declaringClass, String fieldName) {");
+            TypeElement declaring = null;
+            for (var param : parameters) {
+                if (param.accessor == null) continue;
+                if (param.declaring != declaring) {
+                    if (declaring != null) {
+                        out.println("            }");
+                        out.println("        }");
+                    }
+                    declaring = param.declaring;
+                    out.println("        if (declaringClass == " + declaring.getQualifiedName() + ".class) {");
+                    out.println("            switch (fieldName) {");
+                }
+                out.println("                case \"" + param.field.getSimpleName() + "\":");
+                out.println("                    return " + param.accessor + ";");
+            }
+            if (declaring != null) {
+                out.println("            }");
+                out.println("        }");
+            }
+            out.println("        return null;");
+            out.println("    }");
+            if (listed) {
+                out.println();
+                out.println("    @Override");
+                out.println("    public java.util.List<" + BINDING + "<" + OPTION + ">> getOptions() {");
+                out.println("        return OPTIONS;");
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    public java.util.List<" + BINDING + "<" + ARGUMENT + ">> getArguments() {");
+                out.println("        return ARGUMENTS;");
+                out.println("    }");
+            }
+            out.println("}");
+        }
+    }
+
+    private static void writeBindings(PrintWriter out, String name, String annotation, List<String> bindings) {
+        out.println();
+        out.println("    private static final java.util.List<" + BINDING + "<" + annotation + ">> " + name
+                + " = java.util.List.of(");
+        for (int i = 0; i < bindings.size(); ++i) {
+            out.println("            " + BINDING + ".of(" + bindings.get(i) + ")" + (i + 1 < bindings.size() ? "," : ""));
+        }
+        out.println("    );");
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.processor;
+
+import de.mickare.jcp.CommandPipeline;
+import de.mickare.jcp.ICommand;
+import de.mickare.jcp.ICommandBinder;
+import de.mickare.jcp.Option;
+import org.junit.jupiter.api.Test;
+
+import javax.tools.ToolProvider;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinderProcessorTest {
+
+    private static final String SOURCE = """
+            package example;
+
+            import de.mickare.jcp.*;
+            import java.util.List;
+
+            public class GreetCommand extends AbstractHelpedCommand<Object, String> {
+                @Option(names = {"-n", "--name"}, desc = "Name \\"to\\" greet", complete = NameCompleter.class)
+                String name = "world";
+                @Option(names = "-c")
+                int count = 1;
+                @Option(names = "-s")
+                private String secret;
+                @Option(names = "-g")
+                private final String greeting = new String("hello");
+                @Argument(name = "rest", nargs = -1)
+                List<String> rest;
+
+                @Override
+                public String execute2(CommandContext<Object> context) {
+                    return greeting + " " + count + " " + name + " " + secret + " " + rest;
+                }
+
+                public abstract static class Base extends AbstractCommand<Object, String> {
+                }
+
+                public static class NameCompleter implements ICompleter {
+                    @Override
+                    public List<String> complete(CommandContext<?> context, CommandPipeline.Parameter<?> param, String arg) {
+                        return List.of("jcp");
+                    }
+                }
+
+                public static class Inner extends AbstractCommand<Object, String> {
+                    @Override
+                    public String execute(CommandContext<Object> context) {
+                        return "inner";
+                    }
+                }
+            }
+            """;
+    private static final String CLASH = """
+            package example;
+
+            import de.mickare.jcp.*;
+
+            public class GreetCommand_Inner extends AbstractCommand<Object, String> {
+                @Override
+                public String execute(CommandContext<Object> context) {
+                    return "clash";
+                }
+            }
+            """;
+
+    private static Path compile(Path dir) throws Exception {
+        var source = dir.resolve("src/example/GreetCommand.java");
+        var clash = dir.resolve("src/example/GreetCommand_Inner.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, SOURCE);
+        Files.writeString(clash, CLASH);
+        var out = Files.createDirectories(dir.resolve("out"));
+
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        try (var files = compiler.getStandardFileManager(null, null, null)) {
+            var task = compiler.getTask(null, files, null,
+                    List.of("-d", out.toString(), "-classpath", System.getProperty("java.class.path")),
+                    null, files.getJavaFileObjects(source, clash));
+            task.setProcessors(List.of(new BinderProcessor()));
+            assertTrue(task.call(), "compilation failed");
+        }
+        return out;
+    }
+
+    @Test
+    void testGeneratedBinder() throws Exception {
+        var out = compile(Files.createTempDirectory("jcp-processor"));
+        assertTrue(Files.exists(out.resolve("example/GreetCommand" + BinderProcessor.BINDER_SUFFIX + ".class")));
+        assertFalse(Files.exists(out.resolve("example/GreetCommand_0Base" + BinderProcessor.BINDER_SUFFIX + ".class")));
+        assertTrue(Files.exists(out.resolve("example/GreetCommand_0Inner" + BinderProcessor.BINDER_SUFFIX + ".class")));
+        assertTrue(Files.exists(out.resolve("example/GreetCommand_1Inner" + BinderProcessor.BINDER_SUFFIX + ".class")));
+
+        try (var loader = new URLClassLoader(new URL[]{out.toUri().toURL()}, getClass().getClassLoader())) {
+            //noinspection unchecked
+            var cls = (Class<ICommand<Object, String>>) loader.loadClass("example.GreetCommand");
+            var pipeline = CommandPipeline.builder(cls, "greet").build();
+
+            var binder = pipeline.getBinder();
+            assertNotNull(binder);
+            assertNotNull(binder.getOptions());
+            assertEquals(List.of("help", "name", "count", "secret", "greeting"),
+                    binder.getOptions().stream().map(ICommandBinder.Binding::getFieldName).toList());
+            assertEquals(List.of("rest"),
+                    binder.getArguments().stream().map(ICommandBinder.Binding::getFieldName).toList());
+
+            var nameOption = pipeline.getOption("-n");
+            assertNotNull(nameOption);
+            assertSame(binder.getClass(), nameOption.getAccessor().getClass().getEnclosingClass());
+            assertArrayEquals(new String[]{"-n", "--name"}, nameOption.getAnnotation().names());
+            assertEquals("Name \"to\" greet", nameOption.getAnnotation().desc());
+            assertEquals("example.GreetCommand$NameCompleter", nameOption.getAnnotation().complete().getName());
+            assertEquals(nameOption.getField().getAnnotation(Option.class), nameOption.getAnnotation());
+            // Private fields are bound through the lookup of the binder, final fields reflectively
+            assertTrue(pipeline.getOption("-s").getAccessor().toString().startsWith("MethodHandleAccessor"));
+            assertTrue(pipeline.getOption("-h").getAccessor().toString().startsWith("MethodHandleAccessor"));
+            assertTrue(pipeline.getOption("-g").getAccessor().toString().startsWith("ReflectiveAccessor"));
+
+            var result = pipeline.execute(new Object(), new String[]{"-n", "jcp", "-c", "2", "-s", "hidden", "a", "b"});
+            assertEquals("hello 2 jcp hidden [a, b]", result);
+
+            //noinspection unchecked
+            var inner = (Class<ICommand<Object, String>>) loader.loadClass("example.GreetCommand$Inner");
+            //noinspection unchecked
+            var clash = (Class<ICommand<Object, String>>) loader.loadClass("example.GreetCommand_Inner");
+            assertSame(inner, ICommandBinder.find(inner).getCommandClass());
+            assertSame(clash, ICommandBinder.find(clash).getCommandClass());
+        }
+    }
+}
@@ -10,3 +10,4 @@
  */
 
 rootProject.name = "jcp"
+include("jcp-processor")
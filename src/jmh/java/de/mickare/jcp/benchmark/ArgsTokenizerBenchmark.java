@@ -0,0 +1,72 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.benchmark;
+
+import de.mickare.jcp.ArgsTokenizer;
+import de.mickare.jcp.util.NameIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static de.mickare.jcp.benchmark.BenchmarkCommands.FLAT_ARGS;
+import static de.mickare.jcp.benchmark.BenchmarkCommands.FLAT_LINE;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ArgsTokenizerBenchmark {
+    private static final String QUOTED_LINE = "run --name 'hello world' --path \"C:\\\\Program Files\" -t a\\ b";
+
+    private final NameIndex<Boolean> names = new NameIndex<>(Map.of(
+            "-v", true, "--name", true, "-c", true, "--level", true, "-t", true));
+
+    @Benchmark
+    public ArgsTokenizer parseLine() {
+        return ArgsTokenizer.parse(FLAT_LINE);
+    }
+
+    @Benchmark
+    public ArgsTokenizer parseQuotedLine() {
+        return ArgsTokenizer.parse(QUOTED_LINE);
+    }
+
+    @Benchmark
+    public void iterateArray(Blackhole bh) {
+        var args = new ArgsTokenizer(FLAT_ARGS);
+        while (args.hasNext()) {
+            bh.consume(args.next());
+        }
+    }
+
+    @Benchmark
+    public void iterateLineSequences(Blackhole bh) {
+        var args = ArgsTokenizer.parse(FLAT_LINE);
+        while (args.hasNext()) {
+            bh.consume(args.nextSequence());
+        }
+    }
+
+    @Benchmark
+    public void lookupLine(Blackhole bh) {
+        var args = ArgsTokenizer.parse(FLAT_LINE);
+        while (args.hasNext()) {
+            if (args.peekStartsWith('-')) {
+                bh.consume(args.peekLookup(names));
+            }
+            args.skip();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.benchmark;
+
+import de.mickare.jcp.*;
+
+import java.util.List;
+
+/**
+ * Command trees shared by the benchmarks.
+ */
+public final class BenchmarkCommands {
+    public static final Object DATA = new Object();
+
+    public static final String[] FLAT_ARGS = {
+            "-v", "--name", "benchmark", "-c", "42", "--level", "warn",
+            "-t", "a", "-t", "b", "-t", "c", "one.txt", "two.txt", "three.txt"
+    };
+    public static final String FLAT_LINE = String.join(" ", FLAT_ARGS);
+    public static final String[] WIDE_ARGS = {"-x", "1", "cmd7", "-x", "2", "-l", "error"};
+    public static final String[] DEEP_ARGS = {"-x", "0", "a", "-x", "1", "b", "-x", "2", "c", "-x", "3", "d", "-l", "debug", "e"};
+
+    private BenchmarkCommands() {
+    }
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR
+    }
+
+    public static CommandPipeline<FlatCommand, Object, Object> flat() {
+        return CommandPipeline.builder(FlatCommand.class, "flat").build();
+    }
+
+    /**
+     * A root with seven subcommands.
+     */
+    public static CommandPipeline<Node0, Object, Object> wide() {
+        return wideBuilder().build();
+    }
+
+    public static CommandPipeline.Builder<Node0, Object, Object> wideBuilder() {
+        var builder = CommandPipeline.builder(Node0.class, "wide");
+        builder.addSubCommand(Node1.class, "cmd1");
+        builder.addSubCommand(Node2.class, "cmd2");
+        builder.addSubCommand(Node3.class, "cmd3");
+        builder.addSubCommand(Node4.class, "cmd4");
+        builder.addSubCommand(Node5.class, "cmd5");
+        builder.addSubCommand(Node6.class, "cmd6");
+        builder.addSubCommand(Node7.class, "cmd7");
+        return builder;
+    }
+
+    /**
+     * A chain of six nested subcommands.
+     */
+    public static CommandPipeline<Node0, Object, Object> deep() {
+        var builder = CommandPipeline.builder(Node0.class, "deep");
+        builder.addSubCommand(Node1.class, "a")
+                .addSubCommand(Node2.class, "b")
+                .addSubCommand(Node3.class, "c")
+                .addSubCommand(Node4.class, "d")
+                .addSubCommand(Node5.class, "e");
+        return builder.build();
+    }
+
+    @Usage(desc = "Flat command with options of all kinds.")
+    public static class FlatCommand extends AbstractHelpedCommand<Object, Object> {
+        @Option(names = {"-v", "--verbose"}, store_true = true, desc = "Print more output.")
+        private boolean verbose;
+        @Option(names = {"-n", "--name"}, desc = "Name of the thing to process.")
+        private String name;
+        @Option(names = {"-c", "--count"}, desc = "How many times the thing is processed.")
+        private int count;
+        @Option(names = {"-l", "--level"}, desc = "Log level of the processing.")
+        private Level level = Level.INFO;
+        @Option(names = {"-t", "--tag"}, repeatable = true, desc = "Tags that are attached to the result.")
+        private List<String> tags;
+        @Argument(name = "files", symbol = "FILE", nargs = -1, desc = "Files to process.")
+        private List<String> files;
+
+        @Override
+        public Object execute2(CommandContext<Object> context) {
+            return this;
+        }
+    }
+
+    public abstract static class NodeCommand extends AbstractCommand<Object, Object> {
+        @Option(names = {"-x", "--index"}, desc = "Index of the node.")
+        private int index;
+        @Option(names = {"-l", "--level"}, desc = "Log level of the node.")
+        private Level level = Level.INFO;
+
+        @Override
+        public Object execute(CommandContext<Object> context) {
+            return this;
+        }
+    }
+
+    @Usage(desc = "Root node.")
+    public static class Node0 extends NodeCommand {
+    }
+
+    @Usage(desc = "Node 1.")
+    public static class Node1 extends NodeCommand {
+    }
+
+    @Usage(desc = "Node 2.")
+    public static class Node2 extends NodeCommand {
+    }
+
+    @Usage(desc = "Node 3.")
+    public static class Node3 extends NodeCommand {
+    }
+
+    @Usage(desc = "Node 4.")
+    public static class Node4 extends NodeCommand {
+    }
+
+    @Usage(desc = "Node 5.")
+    public static class Node5 extends NodeCommand {
+    }
+
+    @Usage(desc = "Node 6.")
+    public static class Node6 extends NodeCommand {
+    }
+
+    @Usage(desc = "Node 7.")
+    public static class Node7 extends NodeCommand {
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.benchmark;
+
+import de.mickare.jcp.CommandPipeline;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static de.mickare.jcp.benchmark.BenchmarkCommands.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BuildBenchmark {
+    @Param({"sequential", "parallel", "lazy"})
+    public String mode;
+
+    @Benchmark
+    public CommandPipeline<?, Object, Object> buildWide() {
+        var builder = wideBuilder();
+        switch (mode) {
+            case "parallel":
+                builder.parallel(ForkJoinPool.commonPool());
+                break;
+            case "lazy":
+                builder.lazy(true);
+                break;
+            default:
+                break;
+        }
+        return builder.build();
+    }
+}
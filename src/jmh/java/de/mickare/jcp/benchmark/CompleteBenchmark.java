@@ -0,0 +1,75 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.benchmark;
+
+import de.mickare.jcp.ArgsTokenizer;
+import de.mickare.jcp.CommandPipeline;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static de.mickare.jcp.benchmark.BenchmarkCommands.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CompleteBenchmark {
+    /**
+     * Position of the cursor in the command line.
+     */
+    @Param({"optionName", "optionValue", "enumValue", "positional", "subcommand", "nestedEnumValue"})
+    public String cursor;
+
+    private CommandPipeline<?, Object, Object> pipeline;
+    private String label;
+    private String[] args;
+
+    @Setup
+    public void setup() {
+        switch (cursor) {
+            case "optionName":
+                use(wide(), "-x", "1", "--");
+                break;
+            case "optionValue":
+                use(flat(), "-v", "--name", "");
+                break;
+            case "enumValue":
+                use(flat(), "-v", "--level", "w");
+                break;
+            case "positional":
+                use(flat(), "-v", "-c", "1", "one.txt", "t");
+                break;
+            case "subcommand":
+                use(wide(), "-x", "1", "cmd");
+                break;
+            case "nestedEnumValue":
+                use(deep(), "a", "b", "c", "-l", "");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown cursor " + cursor);
+        }
+    }
+
+    private void use(CommandPipeline<?, Object, Object> pipeline, String... args) {
+        this.pipeline = pipeline;
+        this.label = pipeline.getName();
+        this.args = args;
+    }
+
+    @Benchmark
+    public List<String> complete() throws Exception {
+        return pipeline.complete(DATA, label, new ArgsTokenizer(args));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.benchmark;
+
+import de.mickare.jcp.ArgsTokenizer;
+import de.mickare.jcp.CommandPipeline;
+import de.mickare.jcp.ParsedInvocation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static de.mickare.jcp.benchmark.BenchmarkCommands.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ExecuteBenchmark {
+    private CommandPipeline<FlatCommand, Object, Object> flat;
+    private CommandPipeline<FlatCommand, Object, Object> flatCached;
+    private CommandPipeline<FlatCommand, Object, Object> flatPooled;
+    private CommandPipeline<Node0, Object, Object> wide;
+    private CommandPipeline<Node0, Object, Object> deep;
+    private ParsedInvocation<Object, Object> deepParsed;
+
+    @Setup
+    public void setup() throws Exception {
+        flat = flat();
+        flatCached = CommandPipeline.builder(FlatCommand.class, "flat").parseCache(16).build();
+        flatPooled = CommandPipeline.builder(FlatCommand.class, "flat").pool(4).build();
+        wide = wide();
+        deep = deep();
+        deepParsed = deep.parse(DEEP_ARGS);
+    }
+
+    @Benchmark
+    public Object executeFlat() throws Exception {
+        return flat.execute(DATA, FLAT_ARGS);
+    }
+
+    @Benchmark
+    public Object executeFlatLine() throws Exception {
+        return flat.execute(DATA, ArgsTokenizer.parse(FLAT_LINE));
+    }
+
+    @Benchmark
+    public Object executeFlatCached() throws Exception {
+        return flatCached.execute(DATA, FLAT_ARGS);
+    }
+
+    @Benchmark
+    public Object executeFlatPooled() throws Exception {
+        return flatPooled.execute(DATA, FLAT_ARGS);
+    }
+
+    @Benchmark
+    public Object executeWide() throws Exception {
+        return wide.execute(DATA, WIDE_ARGS);
+    }
+
+    @Benchmark
+    public Object executeDeep() throws Exception {
+        return deep.execute(DATA, DEEP_ARGS);
+    }
+
+    @Benchmark
+    public Object parseDeep() throws Exception {
+        return deep.parse(DEEP_ARGS);
+    }
+
+    @Benchmark
+    public Object executeParsedDeep() throws Exception {
+        return deepParsed.execute(DATA);
+    }
+}
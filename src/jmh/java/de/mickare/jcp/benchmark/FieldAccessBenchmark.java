@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.benchmark;
+
+import de.mickare.jcp.FieldAccessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing command fields through a {@link FieldAccessor} with plain reflective {@link Field} access.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FieldAccessBenchmark {
+    private final Target target = new Target();
+    private FieldAccessor nameAccessor;
+    private FieldAccessor countAccessor;
+    private Field nameField;
+    private Field countField;
+    private int counter;
+
+    public static class Target {
+        private String name;
+        private int count;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        nameField = Target.class.getDeclaredField("name");
+        countField = Target.class.getDeclaredField("count");
+        nameAccessor = FieldAccessor.of(nameField);
+        countAccessor = FieldAccessor.of(countField);
+        nameField.setAccessible(true);
+        countField.setAccessible(true);
+    }
+
+    @Benchmark
+    public Object accessorSetObject() {
+        nameAccessor.set(target, "value");
+        return target;
+    }
+
+    @Benchmark
+    public Object accessorSetInt() {
+        countAccessor.setInt(target, counter++);
+        return target;
+    }
+
+    @Benchmark
+    public Object accessorGet() {
+        return nameAccessor.get(target);
+    }
+
+    @Benchmark
+    public Object fieldSetObject() throws IllegalAccessException {
+        nameField.set(target, "value");
+        return target;
+    }
+
+    @Benchmark
+    public Object fieldSetInt() throws IllegalAccessException {
+        countField.setInt(target, counter++);
+        return target;
+    }
+
+    @Benchmark
+    public Object fieldGet() throws IllegalAccessException {
+        return nameField.get(target);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.benchmark;
+
+import de.mickare.jcp.CommandPipeline;
+import de.mickare.jcp.DefaultHelpFormatter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static de.mickare.jcp.benchmark.BenchmarkCommands.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HelpBenchmark {
+    @Param({"flat", "wide"})
+    public String tree;
+
+    private final DefaultHelpFormatter formatter = new DefaultHelpFormatter();
+    private final StringBuilder out = new StringBuilder();
+    private CommandPipeline<?, Object, Object> pipeline;
+
+    @Setup
+    public void setup() {
+        pipeline = tree.equals("flat") ? flat() : wide();
+    }
+
+    @Benchmark
+    public String formatHelp() {
+        return formatter.formatHelp(pipeline);
+    }
+
+    @Benchmark
+    public String formatUsage() {
+        return formatter.formatUsage(pipeline);
+    }
+
+    /**
+     * Renders the help without the memoized text.
+     */
+    @Benchmark
+    public int writeHelp() throws IOException {
+        out.setLength(0);
+        formatter.writeHelp(pipeline, out);
+        return out.length();
+    }
+}
@@ -18,7 +18,7 @@ public abstract class AbstractParser<V> implements IParser<V> {
     public abstract V parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception;
 
     public void write(CommandPipeline.Parameter<?> param, Object obj, V value) throws Exception {
-        param.field.set(obj, value);
+        param.accessor.set(obj, value);
     }
 
     public void parseInto(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
@@ -10,44 +10,264 @@
  */
 package de.mickare.jcp;
 
+import de.mickare.jcp.util.CharSlice;
+import de.mickare.jcp.util.NameIndex;
 import lombok.Getter;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-@RequiredArgsConstructor
 public class ArgsTokenizer {
-    @Getter
-    private final @NonNull String[] allArgs;
+    // Raw command line and the [start, end) bounds of its tokens, or null if the tokens were given as array.
+    private final @Nullable CharSequence source;
+    private final int[] bounds;
+    // Materialized tokens. Tokens of a raw command line are materialized on demand.
+    private final @NonNull String[] tokens;
     @Getter
     private int index = 0;
 
+    public ArgsTokenizer(@NonNull String[] allArgs) {
+        this.source = null;
+        this.bounds = null;
+        this.tokens = allArgs;
+    }
+
+    private ArgsTokenizer(@NonNull CharSequence source, int[] bounds, @NonNull String[] tokens) {
+        this.source = source;
+        this.bounds = bounds;
+        this.tokens = tokens;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static boolean isSpecial(char c) {
+        return c == '\'' || c == '"' || c == '\\';
+    }
+
+    private static boolean isEscapableInDoubleQuotes(char c) {
+        return c == '"' || c == '\\' || c == '$' || c == '`';
+    }
+
+    /**
+     * Splits a raw command line into tokens with POSIX shell-like rules: whitespace separates tokens, single quotes
+     * preserve their content literally, double quotes allow escaping of {@code " \ $ `} and a backslash outside of
+     * quotes escapes the next character.
+     * <p>
+     * Tokens are kept as slices of the line and only materialized as {@link String} when requested. Tokens with
+     * escapes or mixed quoting are materialized while tokenizing.
+     */
+    public static @NonNull ArgsTokenizer parse(@NonNull CharSequence line) {
+        final int length = line.length();
+        int[] bounds = new int[16];
+        String[] tokens = new String[8];
+        int count = 0;
+        StringBuilder unescaped = null;
+
+        int i = 0;
+        while (true) {
+            while (i < length && isWhitespace(line.charAt(i))) i++;
+            if (i >= length) break;
+
+            // Find end of token
+            final int start = i;
+            boolean plain = true;
+            while (i < length) {
+                char c = line.charAt(i);
+                if (isWhitespace(c)) break;
+                if (c == '\'') {
+                    plain = false;
+                    i++;
+                    while (i < length && line.charAt(i) != '\'') i++;
+                    if (i >= length) throw new IllegalArgumentException("Unterminated single quote at " + start);
+                    i++;
+                } else if (c == '"') {
+                    plain = false;
+                    i++;
+                    while (i < length && line.charAt(i) != '"') {
+                        if (line.charAt(i) == '\\') i++;
+                        i++;
+                    }
+                    if (i >= length) throw new IllegalArgumentException("Unterminated double quote at " + start);
+                    i++;
+                } else if (c == '\\') {
+                    plain = false;
+                    i = Math.min(i + 2, length);
+                } else {
+                    i++;
+                }
+            }
+            final int end = i;
+
+            if (count == tokens.length) {
+                tokens = Arrays.copyOf(tokens, count * 2);
+                bounds = Arrays.copyOf(bounds, count * 4);
+            }
+            if (plain) {
+                bounds[2 * count] = start;
+                bounds[2 * count + 1] = end;
+            } else if (isSimpleQuoted(line, start, end)) {
+                bounds[2 * count] = start + 1;
+                bounds[2 * count + 1] = end - 1;
+            } else {
+                if (unescaped == null) unescaped = new StringBuilder();
+                tokens[count] = unescape(line, start, end, unescaped);
+                bounds[2 * count] = -1;
+                bounds[2 * count + 1] = -1;
+            }
+            count++;
+        }
+        return new ArgsTokenizer(line, Arrays.copyOf(bounds, count * 2), Arrays.copyOf(tokens, count));
+    }
+
+    private static boolean isSimpleQuoted(CharSequence line, int start, int end) {
+        if (end - start < 2) return false;
+        char quote = line.charAt(start);
+        if (quote != line.charAt(end - 1)) return false;
+        for (int i = start + 1; i < end - 1; ++i) {
+            if (isSpecial(line.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static String unescape(CharSequence line, int start, int end, StringBuilder out) {
+        out.setLength(0);
+        int i = start;
+        while (i < end) {
+            char c = line.charAt(i);
+            if (c == '\'') {
+                i++;
+                while (line.charAt(i) != '\'') out.append(line.charAt(i++));
+                i++;
+            } else if (c == '"') {
+                i++;
+                while (line.charAt(i) != '"') {
+                    char d = line.charAt(i);
+                    if (d == '\\' && isEscapableInDoubleQuotes(line.charAt(i + 1))) {
+                        out.append(line.charAt(i + 1));
+                        i += 2;
+                    } else {
+                        out.append(d);
+                        i++;
+                    }
+                }
+                i++;
+            } else if (c == '\\') {
+                out.append(i + 1 < end ? line.charAt(i + 1) : c);
+                i += 2;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private String token(int i) {
+        var token = tokens[i];
+        if (token == null) {
+            assert source != null && bounds != null;
+            token = source.subSequence(bounds[2 * i], bounds[2 * i + 1]).toString();
+            tokens[i] = token;
+        }
+        return token;
+    }
+
+    private CharSequence tokenSequence(int i) {
+        var token = tokens[i];
+        if (token != null) return token;
+        assert source != null && bounds != null;
+        return new CharSlice(source, bounds[2 * i], bounds[2 * i + 1]);
+    }
+
+    /**
+     * Returns an independent tokenizer over the same tokens at the current index.
+     */
+    public ArgsTokenizer copy() {
+        var copy = source != null ? new ArgsTokenizer(source, bounds, tokens) : new ArgsTokenizer(tokens);
+        copy.index = this.index;
+        return copy;
+    }
+
+    public String[] getAllArgs() {
+        if (source != null) {
+            for (int i = 0; i < tokens.length; ++i) token(i);
+        }
+        return tokens;
+    }
+
+    public String get(int index) {
+        return token(index);
+    }
+
+    /**
+     * Returns the token at the index without materializing it as {@link String}.
+     */
+    public CharSequence getSequence(int index) {
+        return tokenSequence(index);
+    }
+
     public String peek() {
-        return allArgs[index];
+        return token(index);
     }
 
     public String[] peek(int size) {
         assert size >= 0;
-        return Arrays.copyOfRange(allArgs, index, index + size);
+        return IntStream.range(index, index + size).mapToObj(this::token).toArray(String[]::new);
+    }
+
+    /**
+     * Returns the next token without materializing it as {@link String}.
+     */
+    public CharSequence peekSequence() {
+        return tokenSequence(index);
+    }
+
+    public boolean peekStartsWith(char c) {
+        var token = tokens[index];
+        if (token != null) return !token.isEmpty() && token.charAt(0) == c;
+        assert source != null && bounds != null;
+        int start = bounds[2 * index];
+        return start < bounds[2 * index + 1] && source.charAt(start) == c;
+    }
+
+    /**
+     * Looks up the next token in the index without materializing it as {@link String}.
+     */
+    public <T> @Nullable T peekLookup(@NonNull NameIndex<T> names) {
+        var token = tokens[index];
+        if (token != null) return names.get(token);
+        assert source != null && bounds != null;
+        return names.get(source, bounds[2 * index], bounds[2 * index + 1]);
     }
 
     public String next() {
-        return allArgs[index++];
+        return token(index++);
     }
 
     public String[] next(int size) {
-        assert size >= 0;
-        return Arrays.copyOfRange(allArgs, index, index += size);
+        var result = peek(size);
+        index += size;
+        return result;
+    }
+
+    /**
+     * Returns the next token without materializing it as {@link String}.
+     */
+    public CharSequence nextSequence() {
+        return tokenSequence(index++);
     }
 
     public boolean hasNext() {
-        return index < allArgs.length;
+        return index < tokens.length;
     }
 
     public boolean hasNext(int size) {
-        return index + size <= allArgs.length;
+        return index + size <= tokens.length;
     }
 
     public void skip() {
@@ -61,21 +281,24 @@ public class ArgsTokenizer {
 
 
     public int remaining() {
-        return allArgs.length - index;
+        return tokens.length - index;
     }
 
     public int total() {
-        return allArgs.length;
+        return tokens.length;
     }
 
     public Stream<String> stream() {
-        var stream = Arrays.stream(allArgs, index, allArgs.length);
-        index = allArgs.length;
+        var stream = peekStream();
+        index = tokens.length;
         return stream;
     }
 
     public Stream<String> peekStream() {
-        return Arrays.stream(allArgs, index, allArgs.length);
+        if (source != null) {
+            return IntStream.range(index, tokens.length).mapToObj(this::token);
+        }
+        return Arrays.stream(tokens, index, tokens.length);
     }
 
     public void setIndex(int index) {
@@ -84,7 +307,7 @@ public class ArgsTokenizer {
     }
 
     public String last() {
-        this.index = allArgs.length - 1;
-        return allArgs[allArgs.length - 1];
+        this.index = tokens.length - 1;
+        return token(tokens.length - 1);
     }
 }
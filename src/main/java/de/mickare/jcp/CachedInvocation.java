@@ -0,0 +1,197 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import de.mickare.jcp.util.OrdinalBitSet;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Binding plan of a parsed invocation: the resolved pipelines, labels and parsed values without the mutable command
+ * instances, so that the same arguments can be bound to fresh commands without parsing them again.
+ */
+final class CachedInvocation<V, R> {
+    // Value types of the default parsers that are immutable
+    private static final Set<Class<?>> IMMUTABLE = Set.of(String.class, Boolean.class, Character.class, Byte.class,
+            Short.class, Integer.class, Long.class, Float.class, Double.class, BigInteger.class, BigDecimal.class);
+
+    private final @NonNull List<Step<?, V, R>> steps;
+
+    private CachedInvocation(@NonNull List<Step<?, V, R>> steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * Returns a key that views the remaining arguments without copying them, which is only valid for lookups until the
+     * arguments are advanced. Use {@link Key#own()} to store it.
+     */
+    static @NonNull Key key(@NonNull String label, @NonNull ArgsTokenizer args) {
+        return new Key(label, args, null, args.getIndex(), args.total());
+    }
+
+    /**
+     * Captures the parsed values of an invocation, which must not have been executed yet. Returns null if a value is
+     * neither immutable nor a list of immutable values, since it could not be bound to more than one command.
+     */
+    static <V, R> @Nullable CachedInvocation<V, R> of(@NonNull List<ParsedInvocation.Level<?, V, R>> levels,
+                                                      int start) {
+        List<Step<?, V, R>> steps = new ArrayList<>();
+        for (var level : levels) {
+            var step = Step.of(level, start);
+            if (step == null) return null;
+            steps.add(step);
+        }
+        return new CachedInvocation<>(List.copyOf(steps));
+    }
+
+    @NonNull List<ParsedInvocation.Level<?, V, R>> instantiate(int start) {
+        List<ParsedInvocation.Level<?, V, R>> levels = new ArrayList<>(steps.size());
+        for (var step : steps) {
+            levels.add(step.instantiate(start));
+        }
+        return levels;
+    }
+
+    /**
+     * Returns whether the value can be bound to many commands: immutable values are shared and lists of immutable
+     * values are copied. Values of other types, e.g. of custom parsers, may be mutable.
+     */
+    static boolean isCopyable(@Nullable Object value) {
+        if (value instanceof List) {
+            for (var element : (List<?>) value) {
+                if (element instanceof List || !isCopyable(element)) return false;
+            }
+            return true;
+        }
+        return value == null || value instanceof Enum || IMMUTABLE.contains(value.getClass());
+    }
+
+    private static Object copy(@Nullable Object value) {
+        if (value instanceof List) {
+            return new ArrayList<>((List<?>) value);
+        }
+        return value;
+    }
+
+    /**
+     * The label and the tokens of an invocation, either viewed in a tokenizer or owned.
+     */
+    static final class Key {
+        private final @NonNull String label;
+        private final @Nullable ArgsTokenizer args;
+        private final @Nullable String[] tokens;
+        private final int from;
+        private final int to;
+        private final int hash;
+
+        private Key(@NonNull String label, @Nullable ArgsTokenizer args, @Nullable String[] tokens, int from, int to) {
+            this.label = label;
+            this.args = args;
+            this.tokens = tokens;
+            this.from = from;
+            this.to = to;
+            int hash = label.hashCode();
+            for (int i = from; i < to; ++i) {
+                hash = 31 * hash + hash(token(i));
+            }
+            this.hash = hash;
+        }
+
+        // Same as String#hashCode, without materializing a slice
+        private static int hash(CharSequence token) {
+            if (token instanceof String) return token.hashCode();
+            int hash = 0;
+            for (int i = 0; i < token.length(); ++i) {
+                hash = 31 * hash + token.charAt(i);
+            }
+            return hash;
+        }
+
+        private CharSequence token(int i) {
+            return tokens != null ? tokens[i] : Objects.requireNonNull(args).getSequence(i);
+        }
+
+        /**
+         * Returns a key that holds its own copy of the tokens.
+         */
+        @NonNull Key own() {
+            if (tokens != null) return this;
+            var owned = new String[to - from];
+            for (int i = from; i < to; ++i) {
+                owned[i - from] = token(i).toString();
+            }
+            return new Key(label, null, owned, 0, owned.length);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            var other = (Key) o;
+            if (hash != other.hash || to - from != other.to - other.from || !label.equals(other.label)) return false;
+            for (int i = from, j = other.from; i < to; ++i, ++j) {
+                if (CharSequence.compare(token(i), other.token(j)) != 0) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class Step<C extends ICommand<V, R>, V, R> {
+        private final @NonNull CommandPipeline<C, V, R> pipeline;
+        private final @NonNull String label;
+        // Index of the arguments after this level, relative to the start of the invocation
+        private final int argsIndex;
+        private final @Nullable CommandPipeline<?, V, R> nextPipeline;
+        private final @Nullable String nextLabel;
+        private final long boundOptions;
+        private final @Nullable OrdinalBitSet moreBoundOptions;
+        private final int boundPositional;
+        private final @NonNull List<CommandPipeline.Parameter<?>> parameters;
+        private final @NonNull Object[] values;
+
+        static <C extends ICommand<V, R>, V, R> @Nullable Step<C, V, R> of(ParsedInvocation.Level<C, V, R> level,
+                                                                           int start) {
+            var parameters = level.getParameters();
+            var values = new Object[parameters.size()];
+            for (int i = 0; i < values.length; ++i) {
+                var value = parameters.get(i).getAccessor().get(level.getCommand());
+                if (!isCopyable(value)) return null;
+                values[i] = copy(value);
+            }
+            return new Step<>(level.getPipeline(), level.getLabel(), level.getArgsIndex() - start,
+                    level.getNextPipeline(), level.getNextLabel(), level.boundOptions, level.moreBoundOptions,
+                    level.boundPositional, List.copyOf(parameters), values);
+        }
+
+        ParsedInvocation.Level<C, V, R> instantiate(int start) {
+            var cmd = pipeline.createCommandInstance();
+            for (int i = 0; i < values.length; ++i) {
+                parameters.get(i).getAccessor().set(cmd, copy(values[i]));
+            }
+            return new ParsedInvocation.Level<>(pipeline, cmd, label, start + argsIndex, nextPipeline, nextLabel,
+                    boundOptions, moreBoundOptions, boundPositional);
+        }
+    }
+}
@@ -15,10 +15,10 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RequiredArgsConstructor
-@AllArgsConstructor
 public class CommandContext<V> {
     private final @NonNull Map<Class<? extends ICommand<V, ?>>, Trace<?>> traces = new HashMap<>();
     @Getter
@@ -26,6 +26,14 @@ public class CommandContext<V> {
     @Getter
     @Setter
     private V data = null;
+    // Pre-parsed levels of a ParsedInvocation that are not executed yet
+    private @Nullable List<? extends ParsedInvocation.Level<?, V, ?>> pending = null;
+    private int pendingIndex = 0;
+
+    public CommandContext(ArgsTokenizer arguments, V data) {
+        this.arguments = arguments;
+        this.data = data;
+    }
 
     public <C extends ICommand<V, ?>> @NonNull Trace<C> append(@NonNull Trace<C> trace) {
         var old = this.traces.putIfAbsent(trace.type, trace);
@@ -40,6 +48,24 @@ public class CommandContext<V> {
     }
 
 
+    void setPending(@NonNull List<? extends ParsedInvocation.Level<?, V, ?>> levels, int index) {
+        this.pending = levels;
+        this.pendingIndex = index;
+    }
+
+    <C extends ICommand<V, R>, R> ParsedInvocation.@Nullable Level<C, V, R> pollPending(CommandPipeline<C, V, R> pipeline) {
+        if (pending == null || pendingIndex >= pending.size()) return null;
+        var level = pending.get(pendingIndex);
+        if (level.getPipeline() != pipeline) {
+            // The command diverted from the parsed chain, so the remaining levels are parsed again.
+            pending = null;
+            return null;
+        }
+        pendingIndex++;
+        //noinspection unchecked
+        return (ParsedInvocation.Level<C, V, R>) level;
+    }
+
     public @NonNull Map<Class<? extends ICommand<V, ?>>, Trace<?>> getTraces() {
         return Collections.unmodifiableMap(traces);
     }
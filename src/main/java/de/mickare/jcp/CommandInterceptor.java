@@ -0,0 +1,35 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import lombok.NonNull;
+
+/**
+ * Wraps the execution of every level of a pipeline, which is either {@link ICommand#execute} or
+ * {@link ICommand#executeNext}. An interceptor may return a result without proceeding.
+ *
+ * @see CommandPipeline.Builder#interceptor(CommandInterceptor)
+ */
+@FunctionalInterface
+public interface CommandInterceptor<V, R> {
+
+    R intercept(@NonNull CommandContext<V> context, @NonNull ParsedInvocation.Level<?, V, R> level,
+                @NonNull ArgsTokenizer args, @NonNull Chain<V, R> next) throws Exception;
+
+    /**
+     * The remaining interceptors and the command of a level.
+     */
+    @FunctionalInterface
+    interface Chain<V, R> {
+        R proceed(@NonNull CommandContext<V> context, @NonNull ParsedInvocation.Level<?, V, R> level,
+                  @NonNull ArgsTokenizer args) throws Exception;
+    }
+}
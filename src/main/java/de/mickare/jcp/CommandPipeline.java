@@ -10,7 +10,12 @@
  */
 package de.mickare.jcp;
 
-import de.mickare.jcp.util.IntHashMap;
+import de.mickare.jcp.jfr.CompleteEvent;
+import de.mickare.jcp.jfr.ExecuteEvent;
+import de.mickare.jcp.util.LruCache;
+import de.mickare.jcp.util.NameIndex;
+import de.mickare.jcp.util.OrdinalBitSet;
+import de.mickare.jcp.util.PrefixIndex;
 import de.mickare.jcp.util.ReflectionUtil;
 import de.mickare.jcp.util.StringUtil;
 import lombok.Getter;
@@ -18,11 +23,19 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.ParameterizedType;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -33,30 +46,41 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
     @Getter
     private final @NonNull Class<C> commandClass;
     @Getter
+    private final @Nullable ICommandBinder<C> binder;
+    @Getter
+    private final @NonNull Supplier<? extends C> factory;
+    @Getter
     private final @NonNull String name;
     @Getter
     private final @NonNull List<OptionParameter> options;
+    private final @NonNull NameIndex<OptionParameter> optionIndex;
+    // Ordinals of the required options
+    private final @NonNull OrdinalBitSet requiredOptions;
+    private final @NonNull PrefixIndex optionNames;
     @Getter
     private final @NonNull List<PositionalParameter> positional;
     @Getter
-    private final @NonNull Map<String, CommandPipeline<?, V, R>> pipelines;
+    private final @NonNull Map<String, Subcommand<V, R>> subcommands;
+    private final @NonNull PrefixIndex subcommandNames;
+    private final @Nullable LruCache<CachedInvocation.Key, CachedInvocation<V, R>> parseCache;
+    private final @Nullable CommandPool<C> pool;
+    private final @Nullable PipelineListener listener;
+    private final CommandInterceptor.@Nullable Chain<V, R> interceptors;
     @Getter
     private @Nullable CommandPipeline<?, V, R> parent = null;
+    private @Nullable String path = null;
+    // Texts rendered by help formatters
+    private final Map<Object, String> renderings = new ConcurrentHashMap<>();
 
     public static <C extends ICommand<V, R>, V, R> Builder<C, V, R> builder(
             @NonNull Class<C> cls,
             @NonNull String name
     ) {
-        return new Builder<>(cls, name, new ParserTable());
+        return new Builder<>(cls, name, new ParserTable(), new CompleterTable());
     }
 
-    private C createCommandInstance() {
-        try {
-            return commandClass.getConstructor().newInstance();
-        } catch (InstantiationException | NoSuchMethodException | InvocationTargetException |
-                 IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+    C createCommandInstance() {
+        return factory.get();
     }
 
     public R execute(V data, String[] args) throws Exception {
@@ -73,75 +97,245 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
 
     public R execute(V data, String label, ArgsTokenizer args) throws Exception {
         CommandContext<V> context = new CommandContext<>(args, data);
+        if (parseCache != null) {
+            return executeCached(context, label, args);
+        }
+        return execute(context, label, args);
+    }
+
+    private R executeCached(CommandContext<V> context, String label, ArgsTokenizer args) throws Exception {
+        assert parseCache != null;
+        final int start = args.getIndex();
+        var key = CachedInvocation.key(label, args);
+        var cached = parseCache.get(key);
+        if (cached != null) {
+            context.setPending(cached.instantiate(start), 0);
+        } else {
+            var invocation = parse(label, args);
+            var plan = invocation.getPlan();
+            if (plan != null) parseCache.put(key.own(), plan);
+            context.setPending(invocation.getLevels(), 0);
+            args.setIndex(start);
+        }
         return execute(context, label, args);
     }
 
+    /**
+     * Returns the cache of parsed invocations that {@link #execute(Object, String, ArgsTokenizer)} uses, or null if
+     * caching was not enabled with {@link Builder#parseCache(int)}.
+     */
+    public @Nullable LruCache<?, ?> getParseCache() {
+        return parseCache;
+    }
+
     public R execute(CommandContext<V> context, ArgsTokenizer args) throws Exception {
         return execute(context, this.name, args);
     }
 
     public R execute(CommandContext<V> context, String label, ArgsTokenizer args) throws Exception {
-        var cmd = createCommandInstance();
+        var event = new ExecuteEvent();
+        if (event.isEnabled()) {
+            return executeRecorded(event, context, label, args);
+        }
+        var pending = context.<C, R>pollPending(this);
+        if (pending != null) {
+            context.append(this, commandClass, pending.getCommand(), pending.getLabel());
+            args.setIndex(pending.getArgsIndex());
+            return run(pending, context, args);
+        }
+        if (pool == null) {
+            return run(parseLevel(context, label, args), context, args);
+        }
+        var cmd = pool.acquire();
+        R result = null;
+        try {
+            result = run(parseLevel(context, label, args, cmd), context, args);
+            return result;
+        } finally {
+            // The traces of a returned context still reference the command
+            if (result != context) pool.release(cmd);
+        }
+    }
+
+    private R executeRecorded(ExecuteEvent event, CommandContext<V> context, String label, ArgsTokenizer args)
+            throws Exception {
+        event.begin();
+        event.path = getPath();
+        event.label = label;
+        event.tokens = args.total();
+        C pooled = null;
+        R result = null;
+        long mark = System.nanoTime();
+        try {
+            ParsedInvocation.Level<C, V, R> level;
+            var pending = context.<C, R>pollPending(this);
+            if (pending != null) {
+                context.append(this, commandClass, pending.getCommand(), pending.getLabel());
+                args.setIndex(pending.getArgsIndex());
+                level = pending;
+            } else if (pool == null) {
+                level = parseLevel(context, label, args);
+            } else {
+                pooled = pool.acquire();
+                level = parseLevel(context, label, args, pooled);
+            }
+            event.parseDuration = System.nanoTime() - mark;
+            mark = System.nanoTime();
+            result = run(level, context, args);
+            event.executeDuration = System.nanoTime() - mark;
+            return result;
+        } catch (Throwable t) {
+            event.exception = t.getClass();
+            throw t;
+        } finally {
+            if (pooled != null && result != context) pool.release(pooled);
+            event.commit();
+        }
+    }
+
+    private R invoke(ParsedInvocation.Level<C, V, R> level, CommandContext<V> context, ArgsTokenizer args)
+            throws Exception {
+        if (interceptors == null) {
+            return level.execute(context, args);
+        }
+        return interceptors.proceed(context, level, args);
+    }
+
+    private R run(ParsedInvocation.Level<C, V, R> level, CommandContext<V> context, ArgsTokenizer args) throws Exception {
+        if (listener == null) {
+            return invoke(level, context, args);
+        }
+        var next = level.getNextPipeline();
+        final long start = System.nanoTime();
+        try {
+            var result = invoke(level, context, args);
+            if (next != null) {
+                listener.onDispatched(this, next, start, System.nanoTime());
+            } else {
+                listener.onExecuted(this, start, System.nanoTime());
+            }
+            return result;
+        } catch (Throwable t) {
+            var stage = next != null ? PipelineListener.Stage.DISPATCH : PipelineListener.Stage.EXECUTE;
+            listener.onFailure(this, stage, t, start, System.nanoTime());
+            throw t;
+        }
+    }
+
+    public ParsedInvocation<V, R> parse(String[] args) throws Exception {
+        return parse(this.name, new ArgsTokenizer(args));
+    }
+
+    public ParsedInvocation<V, R> parse(ArgsTokenizer args) throws Exception {
+        return parse(this.name, args);
+    }
+
+    /**
+     * Parses the arguments into command instances of this pipeline and its subcommands without executing them.
+     */
+    public ParsedInvocation<V, R> parse(String label, ArgsTokenizer args) throws Exception {
+        final int start = args.getIndex();
+        var context = new CommandContext<V>(args, null);
+        List<ParsedInvocation.Level<?, V, R>> levels = new ArrayList<>();
+        ParsedInvocation.Level<?, V, R> level = parseLevel(context, label, args);
+        levels.add(level);
+        while (level.getNextPipeline() != null) {
+            level = level.getNextPipeline().parseLevel(context, level.getNextLabel(), args);
+            levels.add(level);
+        }
+        return new ParsedInvocation<>(args.copy(), start, levels);
+    }
+
+    private ParsedInvocation.Level<C, V, R> parseLevel(CommandContext<V> context, String label, ArgsTokenizer args)
+            throws Exception {
+        return parseLevel(context, label, args, createCommandInstance());
+    }
+
+    private ParsedInvocation.Level<C, V, R> parseLevel(CommandContext<V> context, String label, ArgsTokenizer args,
+                                                       C cmd) throws Exception {
+        if (listener == null) {
+            return bindLevel(context, label, args, cmd);
+        }
+        final long start = System.nanoTime();
+        try {
+            return bindLevel(context, label, args, cmd);
+        } catch (Throwable t) {
+            listener.onFailure(this, PipelineListener.Stage.PARSE, t, start, System.nanoTime());
+            throw t;
+        }
+    }
+
+    private ParsedInvocation.Level<C, V, R> bindLevel(CommandContext<V> context, String label, ArgsTokenizer args,
+                                                      C cmd) throws Exception {
         context.append(this, commandClass, cmd, label);
+        final long optionsStart = listener != null ? System.nanoTime() : 0L;
 
-        // Parse options
-        IntHashMap<OptionParameter> countOptions = new IntHashMap<>();
+        // Parse options, the seen options are kept in a word unless the pipeline has more than 64 options
+        long seen = 0L;
+        var moreSeen = options.size() > 64 ? new OrdinalBitSet() : null;
+        int boundPositional = 0;
         while (args.hasNext()) {
-            final var current = args.peek();
-            if (!current.startsWith("-")) break;
-            var found = options.stream()
-                    .filter(o -> Arrays.asList(o.annotation.names()).contains(current))
-                    .findFirst();
+            if (!args.peekStartsWith('-')) break;
+            var param = args.peekLookup(this.optionIndex);
 
-            if (found.isPresent()) {
+            if (param != null) {
+                final int current = args.getIndex();
                 args.skip();
-                var param = found.get();
                 var fieldType = param.field.getType();
-                var count = countOptions.incrementAndGet(param);
+                final boolean first;
+                if (moreSeen != null) {
+                    first = moreSeen.add(param.ordinal);
+                } else {
+                    long bit = 1L << param.ordinal;
+                    first = (seen & bit) == 0;
+                    seen |= bit;
+                }
 
                 if (param.isFlag()) {
                     assert Boolean.class.isAssignableFrom(fieldType) || boolean.class.isAssignableFrom(fieldType);
+                    @SuppressWarnings("unchecked")
+                    var flagParser = (IParser<Boolean>) param.getParser();
                     if (param.annotation.store_false()) {
-                        this.parserTable.get(Boolean.class).write(param, cmd, Boolean.FALSE);
+                        flagParser.write(param, cmd, Boolean.FALSE);
                     } else if (param.annotation.store_true()) {
-                        this.parserTable.get(Boolean.class).write(param, cmd, Boolean.TRUE);
+                        flagParser.write(param, cmd, Boolean.TRUE);
                     } else {
                         throw new UnsupportedOperationException("unexpected flag");
                     }
                 } else {
-                    if (count != 1 && !param.annotation.repeatable()) {
-                        throw new IllegalArgumentException("Option " + current + " is not repeatable");
+                    if (!first && !param.annotation.repeatable()) {
+                        throw new IllegalArgumentException("Option " + args.get(current) + " is not repeatable");
                     }
                     if (!args.hasNext()) {
-                        throw new IllegalArgumentException("missing value for option " + current);
+                        throw new IllegalArgumentException("missing value for option " + args.get(current));
                     }
-                    this.parserTable.get(fieldType).parseInto(param, cmd, args.next());
+                    param.getParser().parseSequenceInto(param, cmd, args.nextSequence());
                 }
 
                 if (param.annotation.skipParsing()) {
-                    return cmd.execute(context);
+                    if (listener != null) listener.onOptionsParsed(this, optionsStart, System.nanoTime());
+                    return new ParsedInvocation.Level<>(this, cmd, label, args.getIndex(), null, null, seen, moreSeen, 0);
                 }
             } else {
-                throw new IllegalArgumentException("unknown flag: " + current);
+                throw new IllegalArgumentException("unknown flag: " + args.peek());
             }
         }
 
         // Check if all required options are satisfied
-        var missingRequiredOptions = options.stream()
-                .filter(opt -> opt.annotation.required() && countOptions.get(opt) == 0)
-                .collect(Collectors.toSet());
-        if (!missingRequiredOptions.isEmpty()) {
+        if (!containsRequiredOptions(seen, moreSeen)) {
             throw new IllegalArgumentException(
                     "Missing required option(s): " +
-                            missingRequiredOptions.stream()
+                            missingRequiredOptions(moreSeen != null ? moreSeen : OrdinalBitSet.of(seen)).stream()
                                     .map(opt -> opt.field.getName())
                                     .collect(Collectors.joining(", "))
             );
         }
+        final long positionalStart = listener != null ? System.nanoTime() : 0L;
+        if (listener != null) listener.onOptionsParsed(this, optionsStart, positionalStart);
 
         // Parse positional
         for (var pos : this.positional) {
-            var parser = this.parserTable.get(pos.field.getType());
+            var parser = pos.getParser();
 
             try {
                 if (pos.nargs() > 0) {
@@ -149,39 +343,70 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
                         throw new IllegalArgumentException("Missing arguments for positional " + pos.annotation.name());
                     }
                     for (int i = 0; i < pos.nargs(); ++i) {
-                        parser.parseInto(pos, cmd, args.next());
+                        parser.parseSequenceInto(pos, cmd, args.nextSequence());
                     }
+                    boundPositional++;
                 } else {
                     int count = 0;
                     while (args.hasNext()) {
-                        parser.parseInto(pos, cmd, args.next());
+                        parser.parseSequenceInto(pos, cmd, args.nextSequence());
                         count += 1;
                     }
                     if (count < Math.abs(pos.nargs())) {
                         throw new IllegalArgumentException("Missing arguments for positional " + pos.annotation.name());
                     }
+                    if (count > 0) boundPositional++;
                 }
             } catch (ArrayIndexOutOfBoundsException ex) {
                 throw new IllegalArgumentException("Missing arguments for positional " + pos.annotation.name(), ex);
             }
         }
+        if (listener != null) listener.onPositionalParsed(this, positionalStart, System.nanoTime());
 
         if (args.hasNext()) {
-            if (this.pipelines.isEmpty()) {
+            if (this.subcommands.isEmpty()) {
                 throw new IllegalArgumentException("Unexpected arguments: " + args.stream().collect(Collectors.joining(" ")));
             } else {
                 var nextLabel = args.next();
                 var nextPipeline = this.getSubcommand(nextLabel);
                 if (nextPipeline == null) throw new IllegalArgumentException("Unexpected subcommand: " + nextLabel);
-                return cmd.executeNext(context, this, nextPipeline, nextLabel, args);
+                return new ParsedInvocation.Level<>(this, cmd, label, args.getIndex(), nextPipeline, nextLabel, seen,
+                        moreSeen, boundPositional);
             }
         }
-        return cmd.execute(context);
+        return new ParsedInvocation.Level<>(this, cmd, label, args.getIndex(), null, null, seen, moreSeen,
+                boundPositional);
+    }
+
+    private boolean containsRequiredOptions(long seen, @Nullable OrdinalBitSet moreSeen) {
+        if (moreSeen != null) return moreSeen.containsAll(requiredOptions);
+        return (requiredOptions.firstWord() & ~seen) == 0;
+    }
+
+    private static boolean isSeen(long seen, @Nullable OrdinalBitSet moreSeen, int ordinal) {
+        return moreSeen != null ? moreSeen.contains(ordinal) : (seen & (1L << ordinal)) != 0;
     }
 
     public @Nullable List<String> complete(V data, String label, ArgsTokenizer args) throws Exception {
         CommandContext<V> context = new CommandContext<>(args, data);
-        return complete(context, label, args);
+        var event = new CompleteEvent();
+        if (!event.isEnabled()) {
+            return complete(context, label, args);
+        }
+        event.begin();
+        event.path = getPath();
+        event.label = label;
+        event.tokens = args.total();
+        try {
+            var result = complete(context, label, args);
+            event.results = result != null ? result.size() : -1;
+            return result;
+        } catch (Throwable t) {
+            event.exception = t.getClass();
+            throw t;
+        } finally {
+            event.commit();
+        }
     }
 
     public @Nullable List<String> complete(CommandContext<V> context, String label, ArgsTokenizer args) throws Exception {
@@ -192,26 +417,22 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
             return null;
         }
 
-        Set<String> results = new HashSet<>();
+        List<String> results = List.of();
 
         // Parse options
-        IntHashMap<OptionParameter> countOptions = new IntHashMap<>();
+        long seen = 0L;
+        var moreSeen = options.size() > 64 ? new OrdinalBitSet() : null;
         while (args.hasNext()) {
             final var current = args.peek();
             if (!current.startsWith("-")) {
-                options.stream()
-                        .filter(opt -> opt.annotation.repeatable() || !countOptions.containsKey(opt))
-                        .<String>mapMulti((opt, buf) -> opt.getNames().forEach(buf))
-                        .forEach(results::add);
+                results = merge(results, completeOptions("", seen, moreSeen));
                 break;
             }
             args.skip();
-            var found = options.stream()
-                    .filter(o -> Arrays.asList(o.annotation.names()).contains(current))
-                    .findFirst();
-            if (args.remaining() > 0 && found.isPresent()) {
-                var param = found.get();
-                var fieldType = param.field.getType();
+            var param = this.optionIndex.get(current);
+            if (args.remaining() > 0 && param != null) {
+                if (moreSeen != null) moreSeen.add(param.ordinal);
+                else seen |= 1L << param.ordinal;
 
                 if (param.annotation.skipParsing()) {
                     continue;
@@ -226,20 +447,13 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
                     }
                 }
             } else {
-                options.stream()
-                        .filter(opt -> opt.annotation.repeatable() || !countOptions.containsKey(opt))
-                        .<String>mapMulti((opt, buf) -> opt.getNames().forEach(buf))
-                        .filter(opt -> opt.startsWith(current))
-                        .forEach(results::add);
+                results = merge(results, completeOptions(current, seen, moreSeen));
             }
         }
 
         // Check if all required options are satisfied
-        var missingRequiredOptions = options.stream()
-                .filter(opt -> opt.annotation.required() && countOptions.get(opt) == 0)
-                .collect(Collectors.toSet());
-        if (!missingRequiredOptions.isEmpty()) {
-            return missingRequiredOptions.stream()
+        if (!containsRequiredOptions(seen, moreSeen)) {
+            return missingRequiredOptions(moreSeen != null ? moreSeen : OrdinalBitSet.of(seen)).stream()
                     .<String>mapMulti((opt, buf) -> opt.getNames().forEach(buf))
                     .sorted().toList();
         }
@@ -259,24 +473,97 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
         }
 
         if (args.hasNext()) {
-            if (this.pipelines.isEmpty()) {
+            if (this.subcommands.isEmpty()) {
                 return null;
             } else {
                 var nextLabel = args.next();
                 var nextPipeline = this.getSubcommand(nextLabel);
                 if (nextPipeline == null) {
-                    return this.pipelines.keySet().stream()
-                            .filter(sub -> sub.startsWith(nextLabel)).toList();
+                    return subcommandNames.withPrefix(nextLabel);
                 }
                 return nextPipeline.complete(context, nextLabel, args);
             }
         }
 
-        return results.stream().sorted().collect(Collectors.toList());
+        return new ArrayList<>(results);
     }
 
+    private List<OptionParameter> missingRequiredOptions(OrdinalBitSet seenOptions) {
+        List<OptionParameter> missing = new ArrayList<>();
+        int i = seenOptions.nextMissing(requiredOptions, 0);
+        while (i >= 0) {
+            missing.add(options.get(i));
+            i = seenOptions.nextMissing(requiredOptions, i + 1);
+        }
+        return missing;
+    }
+
+    private List<String> completeOptions(String prefix, long seen, @Nullable OrdinalBitSet moreSeen) {
+        var names = optionNames.withPrefix(prefix);
+        if (seen == 0L && (moreSeen == null || moreSeen.isEmpty())) return names;
+        return names.stream()
+                .filter(name -> {
+                    var opt = optionIndex.get(name);
+                    return opt.annotation.repeatable() || !isSeen(seen, moreSeen, opt.ordinal);
+                })
+                .toList();
+    }
+
+    // Merges two sorted lists of distinct names
+    private static List<String> merge(List<String> first, List<String> second) {
+        if (first.isEmpty()) return second;
+        if (second.isEmpty()) return first;
+        var merged = new TreeSet<>(first);
+        merged.addAll(second);
+        return List.copyOf(merged);
+    }
+
+    public @Nullable OptionParameter getOption(String name) {
+        return this.optionIndex.get(name);
+    }
+
+    /**
+     * Returns the pipeline of the subcommand, which is built first if the subcommands are built lazily.
+     */
     public @Nullable CommandPipeline<?, V, R> getSubcommand(String name) {
-        return this.pipelines.get(name);
+        var sub = this.subcommands.get(name);
+        return sub != null ? sub.get() : null;
+    }
+
+    /**
+     * Returns the pipelines of all subcommands by name. This builds all lazy subcommands, so help formatters should
+     * use the metadata of {@link #getSubcommands()} instead.
+     */
+    public @NonNull Map<String, CommandPipeline<?, V, R>> getPipelines() {
+        Map<String, CommandPipeline<?, V, R>> result = new LinkedHashMap<>();
+        subcommands.forEach((subName, sub) -> result.put(subName, sub.get()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Returns the text that was rendered for the key before, or renders and remembers it. Pipelines do not change
+     * after they are built, so formatters can cache their output by a key of their settings.
+     */
+    public @NonNull String getRendered(@NonNull Object key, @NonNull Function<CommandPipeline<C, V, R>, String> render) {
+        var text = renderings.get(key);
+        if (text == null) {
+            text = render.apply(this);
+            var old = renderings.putIfAbsent(key, text);
+            if (old != null) text = old;
+        }
+        return text;
+    }
+
+    /**
+     * Returns the names of the pipelines from the root to this pipeline, separated by spaces.
+     */
+    public @NonNull String getPath() {
+        var result = path;
+        if (result == null) {
+            result = parent != null ? parent.getPath() + " " + name : name;
+            path = result;
+        }
+        return result;
     }
 
     public Stream<CommandPipeline<?, V, R>> getAllParents() {
@@ -286,14 +573,55 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
         return Stream.empty();
     }
 
+    /**
+     * Value parsers keyed by type. A builder registers parsers in a mutable table, which is frozen into an immutable
+     * snapshot when the pipelines are built, so that building never changes the table that running pipelines use.
+     * <p>
+     * A type without a registered parser resolves to the parser of its closest superclass, then of its interfaces.
+     * Enums without a registered parser get an {@link DefaultParser.EnumParser}. Frozen tables cache the resolution
+     * per type and are safe for concurrent use.
+     */
     public static class ParserTable {
-        private final @NonNull Map<Class<?>, IParser<?>> custom = new HashMap<>();
+        private final @NonNull Map<Class<?>, IParser<?>> custom;
+        private final @Nullable ClassValue<Optional<IParser<?>>> resolved;
+
+        public ParserTable() {
+            this.custom = new HashMap<>();
+            this.resolved = null;
+        }
+
+        private ParserTable(@NonNull Map<Class<?>, IParser<?>> custom) {
+            this.custom = Map.copyOf(custom);
+            this.resolved = new ClassValue<>() {
+                @Override
+                protected Optional<IParser<?>> computeValue(Class<?> type) {
+                    return Optional.ofNullable(resolve(type));
+                }
+            };
+        }
+
+        public boolean isFrozen() {
+            return resolved != null;
+        }
+
+        /**
+         * Returns an immutable snapshot of this table. Later registrations in this table do not change the snapshot.
+         */
+        public @NonNull ParserTable freeze() {
+            return isFrozen() ? this : new ParserTable(custom);
+        }
+
+        private void checkMutable() {
+            if (isFrozen()) throw new IllegalStateException("Parser table is frozen");
+        }
 
         public <V> void register(Class<V> cls, IParser<V> parser) {
+            checkMutable();
             custom.put(cls, parser);
         }
 
         public <V> void registerIfAbsent(Class<V> cls, IParser<V> parser) {
+            checkMutable();
             custom.putIfAbsent(cls, parser);
         }
 
@@ -305,11 +633,42 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
             registerIfAbsent(enumClass, new DefaultParser.EnumParser<>(enumClass));
         }
 
-        public <V> @Nullable IParser<V> getIfPresent(Class<V> cls) {
+        private @Nullable IParser<?> lookup(Class<?> cls) {
             var parser = custom.get(cls);
-            if (parser == null) {
-                parser = DefaultParser.STATIC_PARSER.get(cls);
+            return parser != null ? parser : DefaultParser.STATIC_PARSER.get(cls);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static IParser<?> enumParser(Class<?> enumClass) {
+            return new DefaultParser.EnumParser(ReflectionUtil.checkIsEnum(enumClass));
+        }
+
+        private @Nullable IParser<?> resolve(Class<?> cls) {
+            var parser = lookup(cls);
+            if (parser != null) return parser;
+            if (cls.isEnum()) return enumParser(cls);
+            for (var sup = cls.getSuperclass(); sup != null && sup != Object.class; sup = sup.getSuperclass()) {
+                parser = lookup(sup);
+                if (parser != null && parser.canAssignTo(cls)) return parser;
+            }
+            // Interfaces breadth first, so the directly implemented ones win
+            Deque<Class<?>> queue = new ArrayDeque<>();
+            Set<Class<?>> visited = new HashSet<>();
+            for (var c = cls; c != null; c = c.getSuperclass()) {
+                queue.addAll(Arrays.asList(c.getInterfaces()));
+            }
+            while (!queue.isEmpty()) {
+                var itf = queue.poll();
+                if (!visited.add(itf)) continue;
+                parser = lookup(itf);
+                if (parser != null && parser.canAssignTo(cls)) return parser;
+                queue.addAll(Arrays.asList(itf.getInterfaces()));
             }
+            return null;
+        }
+
+        public <V> @Nullable IParser<V> getIfPresent(Class<V> cls) {
+            var parser = resolved != null ? resolved.get(cls).orElse(null) : resolve(cls);
             //noinspection unchecked
             return (IParser<V>) parser;
         }
@@ -321,42 +680,366 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
         }
     }
 
+    /**
+     * Completer instances keyed by class. Completers are created once and shared by all parameters and completions
+     * of the pipelines using this table, so {@link ICompleter} implementations must be thread-safe.
+     */
+    public static class CompleterTable {
+        private final @NonNull Map<Class<? extends ICompleter>, ICompleter> instances = new ConcurrentHashMap<>();
+
+        public <T extends ICompleter> void register(@NonNull Class<T> cls, @NonNull T completer) {
+            instances.put(cls, completer);
+        }
+
+        public @NonNull ICompleter get(@NonNull Class<? extends ICompleter> cls) {
+            return instances.computeIfAbsent(cls, CompleterTable::create);
+        }
+
+        private static ICompleter create(Class<? extends ICompleter> cls) {
+            try {
+                return cls.getConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException("Failed to create completer " + cls, e);
+            }
+        }
+    }
+
+    /**
+     * Subcommand of a pipeline. The name and command class are known without building the pipeline of the
+     * subcommand, which is built on first use if the builder is {@link Builder#lazy(boolean) lazy}.
+     */
+    public static final class Subcommand<V, R> {
+        @Getter
+        private final @NonNull String name;
+        @Getter
+        private final @NonNull Class<? extends ICommand<V, R>> commandClass;
+        private @Nullable Supplier<CommandPipeline<?, V, R>> builder;
+        private volatile @Nullable CommandPipeline<?, V, R> pipeline;
+        private @Nullable CommandPipeline<?, V, R> owner;
+        // Schema the lazy subcommand is built from, which is rewritten in the background if it turns out to be stale
+        private PipelineSchema.@Nullable Node schema;
+
+        private Subcommand(@NonNull String name, @NonNull Class<? extends ICommand<V, R>> commandClass,
+                           @Nullable Supplier<CommandPipeline<?, V, R>> builder,
+                           @Nullable CommandPipeline<?, V, R> pipeline, PipelineSchema.@Nullable Node schema) {
+            this.name = name;
+            this.commandClass = commandClass;
+            this.builder = builder;
+            this.pipeline = pipeline;
+            this.schema = schema;
+        }
+
+        // Called once by the owner before it is published
+        private void attach(CommandPipeline<?, V, R> owner) {
+            this.owner = owner;
+            var built = this.pipeline;
+            if (built != null) built.parent = owner;
+        }
+
+        public boolean isBuilt() {
+            return pipeline != null;
+        }
+
+        /**
+         * Returns the pipeline of the subcommand and builds it if it was not built before. Invalid lazy commands
+         * fail here instead of when the root pipeline is built.
+         */
+        public @NonNull CommandPipeline<?, V, R> get() {
+            var result = pipeline;
+            if (result == null) {
+                synchronized (this) {
+                    result = pipeline;
+                    if (result == null) {
+                        assert builder != null;
+                        result = builder.get();
+                        result.parent = owner;
+                        pipeline = result;
+                        builder = null;
+                        if (schema != null) {
+                            var built = schema;
+                            schema = null;
+                            // The schema is only a startup cache, so it is rewritten off the dispatch path and a
+                            // failed write leaves it stale
+                            ForkJoinPool.commonPool().execute(() -> {
+                                try {
+                                    built.rewriteIfStale();
+                                } catch (IOException | RuntimeException e) {
+                                    // Rewritten by a later build
+                                }
+                            });
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class InterceptorNode<V, R> implements CommandInterceptor.Chain<V, R> {
+        private final @NonNull CommandInterceptor<V, R> interceptor;
+        private final @NonNull CommandInterceptor.Chain<V, R> next;
+
+        @Override
+        public R proceed(@NonNull CommandContext<V> context, @NonNull ParsedInvocation.Level<?, V, R> level,
+                         @NonNull ArgsTokenizer args) throws Exception {
+            return interceptor.intercept(context, level, args, next);
+        }
+    }
+
     @RequiredArgsConstructor
     public static class Builder<C extends ICommand<V, R>, V, R> {
         private final @NonNull Class<C> commandClass;
         private final @NonNull String name;
         @Getter
         private final @NonNull ParserTable parser;
+        @Getter
+        private final @NonNull CompleterTable completers;
         private final List<Builder<?, V, R>> subcommands = new ArrayList<>();
+        private @Nullable Supplier<? extends C> factory = null;
+        private int parseCacheSize = 0;
+        private int poolSize = 0;
+        private boolean lazy = false;
+        private @Nullable ForkJoinPool buildPool = null;
+        private final List<PipelineListener> listeners = new ArrayList<>();
+        private final List<CommandInterceptor<V, R>> interceptors = new ArrayList<>();
+
+        public Builder(@NonNull Class<C> commandClass, @NonNull String name, @NonNull ParserTable parser) {
+            this(commandClass, name, parser, new CompleterTable());
+        }
+
+        public Builder<C, V, R> factory(@NonNull Supplier<? extends C> factory) {
+            this.factory = factory;
+            return this;
+        }
+
+        /**
+         * Caches up to the given number of parsed argument vectors, so that repeated invocations with identical
+         * arguments skip parsing. Only invocations whose values are strings, boxed primitives, big numbers, enums or
+         * lists of these are cached: the values are shared between commands, except lists which are copied. Values of
+         * other types, e.g. of custom parsers, may be mutable and are parsed again for every invocation.
+         */
+        public Builder<C, V, R> parseCache(int maximumSize) {
+            if (maximumSize < 0) throw new IllegalArgumentException("maximum size must not be negative");
+            this.parseCacheSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Reuses the command instances of {@link CommandPipeline#execute(CommandContext, String, ArgsTokenizer)} with
+         * the given number of striped slots. After execution, option and argument fields are reset to the defaults of
+         * a template instance, so commands must not keep other state and must not be referenced after execution.
+         * Commands are not reused if the execution returns its context, since its traces reference the commands.
+         */
+        public Builder<C, V, R> pool(int size) {
+            if (size < 0) throw new IllegalArgumentException("pool size must not be negative");
+            this.poolSize = size;
+            return this;
+        }
+
+        /**
+         * Builds the subcommands of this pipeline and their subcommands only when they are first used, e.g. by
+         * execution or completion. Configuration errors of lazy subcommands are thrown on first use, and the
+         * builders must not be changed after {@link #build()}.
+         */
+        public Builder<C, V, R> lazy(boolean lazy) {
+            this.lazy = lazy;
+            return this;
+        }
+
+        /**
+         * Builds the subcommands of this pipeline in parallel on the given pool. Each subtree is built independently
+         * and the results are collected in declaration order, so the pipelines do not depend on the scheduling.
+         * Lazy subcommands are not built in parallel.
+         */
+        public Builder<C, V, R> parallel(@NonNull ForkJoinPool pool) {
+            this.buildPool = pool;
+            return this;
+        }
+
+        /**
+         * Adds a listener that observes this pipeline and all its subcommands.
+         */
+        public Builder<C, V, R> listener(@NonNull PipelineListener listener) {
+            this.listeners.add(listener);
+            return this;
+        }
+
+        /**
+         * Adds an interceptor around the execution of this pipeline and all its subcommands. Interceptors of a parent
+         * are called before the interceptors of its subcommands, and otherwise in the order they were added.
+         */
+        public Builder<C, V, R> interceptor(@NonNull CommandInterceptor<V, R> interceptor) {
+            this.interceptors.add(interceptor);
+            return this;
+        }
 
         public <S extends ICommand<V, R>> Builder<S, V, R> addSubCommand(@NonNull Class<S> cls, @NonNull String name) {
             assert subcommands.stream().noneMatch(sub -> sub.commandClass == cls);
             assert subcommands.stream().noneMatch(sub -> sub.name.equals(name));
-            Builder<S, V, R> sub = new Builder<>(cls, name, parser);
+            Builder<S, V, R> sub = new Builder<>(cls, name, parser, completers);
             subcommands.add(sub);
             return sub;
         }
 
+        private static FieldAccessor bindAccessor(@Nullable ICommandBinder<?> binder, Field field) {
+            if (binder != null) {
+                var accessor = binder.getAccessor(field.getDeclaringClass(), field.getName());
+                if (accessor != null) return accessor;
+            }
+            return FieldAccessor.of(field);
+        }
+
+        private static FieldAccessor bindAccessor(ICommandBinder.Binding<?> binding) {
+            var accessor = binding.getAccessor();
+            return accessor != null ? accessor : FieldAccessor.of(binding.getField());
+        }
+
         public CommandPipeline<C, V, R> build() {
+            return buildRoot(null);
+        }
 
-            var options = ReflectionUtil.getAllDeclaredFields(commandClass, Option.class)
-                    .map(field -> new OptionParameter(field, parser))
-                    .toList();
-            var positional = ReflectionUtil.getAllDeclaredFields(commandClass, Argument.class)
-                    .map(field -> new PositionalParameter(field, parser))
-                    .toList();
-
-            options.stream()
-                    .filter(opt -> opt.field.getType().isEnum())
-                    .map(opt -> opt.field.getType())
-                    .map(ReflectionUtil::checkIsEnum)
-                    .forEach(parser::registerEnumIfAbsent);
-            positional.stream()
-                    .filter(opt -> opt.field.getType().isEnum())
-                    .map(opt -> opt.field.getType())
-                    .map(ReflectionUtil::checkIsEnum)
-                    .forEach(parser::registerEnumIfAbsent);
+        /**
+         * Builds the pipelines like {@link #build()}, but reads the options and arguments of the commands from the
+         * schema file instead of scanning the command classes, as long as the classes did not change. If the file
+         * does not exist or does not match, it is written after building.
+         * <p>
+         * Lazy subcommands stay lazy. When a lazy subcommand is built and does not match the file, the file is
+         * rewritten in the background. A failed rewrite does not fail the command, the file is then rewritten by a
+         * later build.
+         *
+         * @throws UncheckedIOException if the schema file can not be read or written
+         * @see PipelineSchema
+         */
+        public CommandPipeline<C, V, R> buildWithSchema(@NonNull Path file) {
+            try {
+                var schema = PipelineSchema.read(file);
+                if (schema == null) schema = PipelineSchema.empty();
+                var pipeline = buildRoot(schema.getRoot());
+                schema.attach(file, pipeline);
+                schema.rewriteIfStale();
+                return pipeline;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
 
+        private CommandPipeline<C, V, R> buildRoot(PipelineSchema.@Nullable Node schema) {
+            var table = parser.freeze();
+            if (buildPool != null && !lazy) {
+                return buildPool.invoke(ForkJoinTask.adapt(() -> build(table, List.of(), List.of(), false, true, schema)));
+            }
+            return build(table, List.of(), List.of(), false, false, schema);
+        }
+
+        private static <V, R> CommandInterceptor.@Nullable Chain<V, R> compile(List<CommandInterceptor<V, R>> interceptors) {
+            if (interceptors.isEmpty()) return null;
+            CommandInterceptor.Chain<V, R> chain = (context, level, args) -> level.execute(context, args);
+            for (int i = interceptors.size() - 1; i >= 0; --i) {
+                chain = new InterceptorNode<>(interceptors.get(i), chain);
+            }
+            return chain;
+        }
+
+        // Builds the subtrees in declaration order, forking all but the last one when building in parallel
+        private static <V, R> List<CommandPipeline<?, V, R>> buildAll(List<Builder<?, V, R>> subs, ParserTable table,
+                                                                      List<PipelineListener> listeners,
+                                                                      List<CommandInterceptor<V, R>> interceptors,
+                                                                      boolean parallel,
+                                                                      PipelineSchema.@Nullable Node schema) {
+            List<CommandPipeline<?, V, R>> result = new ArrayList<>(subs.size());
+            if (!parallel || subs.size() < 2) {
+                for (var sub : subs) {
+                    result.add(sub.build(table, listeners, interceptors, false, parallel, sub.schemaOf(schema)));
+                }
+                return result;
+            }
+            List<ForkJoinTask<CommandPipeline<?, V, R>>> tasks = new ArrayList<>(subs.size() - 1);
+            for (var sub : subs.subList(0, subs.size() - 1)) {
+                Callable<CommandPipeline<?, V, R>> task =
+                        () -> sub.build(table, listeners, interceptors, false, true, sub.schemaOf(schema));
+                tasks.add(ForkJoinTask.adapt(task).fork());
+            }
+            var last = subs.get(subs.size() - 1);
+            var lastPipeline = last.build(table, listeners, interceptors, false, true, last.schemaOf(schema));
+            for (var task : tasks) {
+                result.add(task.join());
+            }
+            result.add(lastPipeline);
+            return result;
+        }
+
+        // Schema of this subcommand in the schema of its parent
+        private PipelineSchema.@Nullable Node schemaOf(PipelineSchema.@Nullable Node parent) {
+            return parent != null ? parent.getSubcommand(name) : null;
+        }
+
+        private CommandPipeline<C, V, R> build(ParserTable table, List<PipelineListener> inheritedListeners,
+                                               List<CommandInterceptor<V, R>> inheritedInterceptors,
+                                               boolean inheritedLazy, boolean parallel,
+                                               PipelineSchema.@Nullable Node schema) {
+            final boolean lazy = inheritedLazy || this.lazy;
+            List<PipelineListener> listeners = new ArrayList<>(inheritedListeners);
+            listeners.addAll(this.listeners);
+            List<CommandInterceptor<V, R>> interceptors = new ArrayList<>(inheritedInterceptors);
+            interceptors.addAll(this.interceptors);
+            var binder = ICommandBinder.find(commandClass);
+
+            List<OptionParameter> options = null;
+            List<PositionalParameter> positional = null;
+            var optionList = binder != null ? binder.getOptions() : null;
+            var argumentList = binder != null ? binder.getArguments() : null;
+            if (optionList != null && argumentList != null) {
+                options = optionList.stream()
+                        .map(b -> new OptionParameter(b.getField(), b.getAnnotation(), table, bindAccessor(b),
+                                completers))
+                        .toList();
+                positional = argumentList.stream()
+                        .map(b -> new PositionalParameter(b.getField(), b.getAnnotation(), table, bindAccessor(b),
+                                completers))
+                        .toList();
+            } else if (schema != null && schema.matches(name, commandClass)) {
+                var optionBindings = schema.bindOptions(commandClass);
+                var positionalBindings = schema.bindPositional(commandClass);
+                if (optionBindings != null && positionalBindings != null) {
+                    options = optionBindings.stream()
+                            .map(b -> new OptionParameter(b.field, b.annotation, table, bindAccessor(binder, b.field),
+                                    completers))
+                            .toList();
+                    positional = positionalBindings.stream()
+                            .map(b -> new PositionalParameter(b.field, b.annotation, table,
+                                    bindAccessor(binder, b.field), completers))
+                            .toList();
+                }
+            }
+            if (options == null) {
+                if (schema != null) schema.markStale();
+                options = ReflectionUtil.getAllDeclaredFields(commandClass, Option.class)
+                        .map(field -> new OptionParameter(field, table, bindAccessor(binder, field), completers))
+                        .toList();
+                positional = ReflectionUtil.getAllDeclaredFields(commandClass, Argument.class)
+                        .map(field -> new PositionalParameter(field, table, bindAccessor(binder, field), completers))
+                        .toList();
+            }
+            if (schema != null && schema.getSubcommandCount() != subcommands.size()) schema.markStale();
+
+            var requiredOptions = new OrdinalBitSet();
+            for (int i = 0; i < options.size(); ++i) {
+                var opt = options.get(i);
+                opt.ordinal = i;
+                if (opt.annotation.required()) requiredOptions.add(i);
+            }
+
+            Map<String, OptionParameter> optionIndex = new HashMap<>();
+            for (var opt : options) {
+                for (var optName : opt.getNames()) {
+                    var other = optionIndex.putIfAbsent(optName, opt);
+                    if (other != null) {
+                        throw new RuntimeException("Invalid command! Option name '" + optName + "' is declared by both "
+                                + other.field + " and " + opt.field);
+                    }
+                }
+            }
 
             boolean unlimited = false;
             for (var pos : positional) {
@@ -369,19 +1052,48 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
                 }
             }
 
-            Map<String, CommandPipeline<?, V, R>> subPipelines = subcommands.stream()
-                    .map(Builder::build)
-                    .collect(Collectors.toUnmodifiableMap(CommandPipeline::getName, Function.identity()));
+            var subBuilders = List.copyOf(subcommands);
+            List<CommandPipeline<?, V, R>> built = lazy ? null
+                    : buildAll(subBuilders, table, listeners, interceptors, parallel, schema);
+            Map<String, Subcommand<V, R>> subPipelines = new LinkedHashMap<>();
+            for (int i = 0; i < subBuilders.size(); ++i) {
+                var sub = subBuilders.get(i);
+                var subSchema = lazy ? sub.schemaOf(schema) : null;
+                subPipelines.put(sub.name, lazy
+                        ? new Subcommand<>(sub.name, sub.commandClass,
+                        () -> sub.build(table, listeners, interceptors, true, false, subSchema), null, subSchema)
+                        : new Subcommand<>(sub.name, sub.commandClass, null, built.get(i), null));
+            }
+
+            Supplier<? extends C> factory = this.factory != null ? this.factory
+                    : binder != null ? binder::newInstance
+                    : ReflectionUtil.constructorFactory(commandClass);
+            CommandPool<C> pool = null;
+            if (poolSize > 0) {
+                var parameters = new ArrayList<Parameter<?>>(options);
+                parameters.addAll(positional);
+                pool = new CommandPool<>(factory, parameters, poolSize);
+            }
 
             var pipeline = new CommandPipeline<>(
-                    parser,
+                    table,
                     commandClass,
+                    binder,
+                    factory,
                     name,
                     Collections.unmodifiableList(options),
+                    new NameIndex<>(optionIndex),
+                    requiredOptions,
+                    PrefixIndex.of(optionIndex.keySet()),
                     Collections.unmodifiableList(positional),
-                    Collections.unmodifiableMap(subPipelines)
+                    Collections.unmodifiableMap(subPipelines),
+                    PrefixIndex.of(subPipelines.keySet()),
+                    parseCacheSize > 0 ? new LruCache<>(parseCacheSize) : null,
+                    pool,
+                    PipelineListener.of(listeners),
+                    compile(interceptors)
             );
-            subPipelines.values().forEach(child -> child.parent = pipeline);
+            subPipelines.values().forEach(child -> child.attach(pipeline));
             return pipeline;
         }
     }
@@ -392,13 +1104,56 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
         @Getter
         protected final @NonNull A annotation;
         @Getter
+        protected final @NonNull FieldAccessor accessor;
+        @Getter
         private final @NonNull ParserTable parserTable;
+        @Getter
+        private final @NonNull IParser<?> parser;
+        // Parser of the elements if the parameter is a list
+        @Getter
+        private final @Nullable IParser<?> elementParser;
 
         public Parameter(@NonNull Field field, @NonNull Class<A> annotationClass, @NonNull ParserTable parserTable) {
+            this(field, annotationClass, parserTable, FieldAccessor.of(field));
+        }
+
+        public Parameter(@NonNull Field field, @NonNull Class<A> annotationClass, @NonNull ParserTable parserTable,
+                         @NonNull FieldAccessor accessor) {
+            this(field, field.getDeclaredAnnotation(annotationClass), parserTable, accessor);
+        }
+
+        public Parameter(@NonNull Field field, @NonNull A annotation, @NonNull ParserTable parserTable,
+                         @NonNull FieldAccessor accessor) {
             this.field = field;
-            this.annotation = field.getDeclaredAnnotation(annotationClass);
+            this.annotation = annotation;
+            this.accessor = accessor;
             this.parserTable = parserTable;
-            this.field.setAccessible(true);
+            this.parser = resolveParser(field.getType());
+            this.elementParser = this.parser instanceof DefaultParser.ListParser ? resolveElementParser() : null;
+        }
+
+        private IParser<?> resolveElementParser() {
+            var result = resolveParser(elementType());
+            if (result instanceof DefaultParser.ListParser) {
+                throw new RuntimeException("Invalid command! Nested list " + field + " is not supported.");
+            }
+            return result;
+        }
+
+        private IParser<?> resolveParser(Class<?> type) {
+            var result = parserTable.getIfPresent(type);
+            if (result == null) {
+                throw new RuntimeException("Invalid command! No value parser for type " + type.getName() + " of " + field);
+            }
+            return result;
+        }
+
+        private Class<?> elementType() {
+            if (field.getGenericType() instanceof ParameterizedType) {
+                var arg = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+                if (arg instanceof Class) return (Class<?>) arg;
+            }
+            throw new RuntimeException("Invalid command! List " + field + " needs a concrete element type.");
         }
 
         public boolean isPrimitive() {
@@ -411,21 +1166,32 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
             return this.parserTable.get(cls);
         }
 
-        public IParser<?> getParser() {
-            return this.parserTable.get(this.field.getType());
-        }
-
         public abstract String getName();
 
-        public abstract @NonNull ICompleter getCompleter() throws ReflectiveOperationException;
+        public abstract @NonNull ICompleter getCompleter();
     }
 
     public static class OptionParameter extends Parameter<Option> {
         @Getter
         protected final @NonNull List<String> names;
+        private final @NonNull ICompleter completer;
+        // Index in the options of the pipeline, assigned when the pipeline is built
+        @Getter
+        int ordinal = -1;
 
         public OptionParameter(@NonNull Field field, @NonNull ParserTable parser) {
-            super(field, Option.class, parser);
+            this(field, parser, FieldAccessor.of(field), new CompleterTable());
+        }
+
+        public OptionParameter(@NonNull Field field, @NonNull ParserTable parser, @NonNull FieldAccessor accessor,
+                               @NonNull CompleterTable completers) {
+            this(field, field.getDeclaredAnnotation(Option.class), parser, accessor, completers);
+        }
+
+        public OptionParameter(@NonNull Field field, @NonNull Option annotation, @NonNull ParserTable parser,
+                               @NonNull FieldAccessor accessor, @NonNull CompleterTable completers) {
+            super(field, annotation, parser, accessor);
+            this.completer = completers.get(this.annotation.complete());
             assert this.annotation.names().length > 0;
             this.names = List.of(this.annotation.names());
 
@@ -443,8 +1209,8 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
         }
 
         @Override
-        public @NonNull ICompleter getCompleter() throws ReflectiveOperationException {
-            return this.annotation.complete().getConstructor().newInstance();
+        public @NonNull ICompleter getCompleter() {
+            return this.completer;
         }
 
         public String getSymbol() {
@@ -458,8 +1224,21 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
     }
 
     public static class PositionalParameter extends Parameter<Argument> {
+        private final @NonNull ICompleter completer;
+
         public PositionalParameter(@NonNull Field field, @NonNull ParserTable parser) {
-            super(field, Argument.class, parser);
+            this(field, parser, FieldAccessor.of(field), new CompleterTable());
+        }
+
+        public PositionalParameter(@NonNull Field field, @NonNull ParserTable parser, @NonNull FieldAccessor accessor,
+                                   @NonNull CompleterTable completers) {
+            this(field, field.getDeclaredAnnotation(Argument.class), parser, accessor, completers);
+        }
+
+        public PositionalParameter(@NonNull Field field, @NonNull Argument annotation, @NonNull ParserTable parser,
+                                   @NonNull FieldAccessor accessor, @NonNull CompleterTable completers) {
+            super(field, annotation, parser, accessor);
+            this.completer = completers.get(this.annotation.complete());
         }
 
         @Override
@@ -478,8 +1257,8 @@ public class CommandPipeline<C extends ICommand<V, R>, V, R> {
         }
 
         @Override
-        public @NonNull ICompleter getCompleter() throws ReflectiveOperationException {
-            return this.annotation.complete().getConstructor().newInstance();
+        public @NonNull ICompleter getCompleter() {
+            return this.completer;
         }
     }
 
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Striped pool of command instances that are reset to the option and argument defaults of a template instance
+ * before they are reused. Each thread is mapped to one slot, so there is no contention between threads that are
+ * mapped to different slots.
+ */
+final class CommandPool<C> {
+    private final @NonNull Supplier<? extends C> factory;
+    private final CommandPipeline.Parameter<?>[] parameters;
+    private final Object[] defaults;
+    private final AtomicReferenceArray<C> slots;
+    private final int mask;
+
+    CommandPool(@NonNull Supplier<? extends C> factory, @NonNull List<? extends CommandPipeline.Parameter<?>> parameters,
+                int size) {
+        assert size > 0;
+        this.factory = factory;
+        this.parameters = parameters.toArray(new CommandPipeline.Parameter<?>[0]);
+        this.defaults = new Object[this.parameters.length];
+        var template = factory.get();
+        for (int i = 0; i < defaults.length; ++i) {
+            defaults[i] = copy(this.parameters[i].getAccessor().get(template));
+        }
+        int capacity = Integer.highestOneBit(size * 2 - 1);
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    private static Object copy(@Nullable Object value) {
+        if (value instanceof List) {
+            return new ArrayList<>((List<?>) value);
+        }
+        return value;
+    }
+
+    private int slot() {
+        var id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 32)) & mask;
+    }
+
+    C acquire() {
+        var cmd = slots.getAndSet(slot(), null);
+        return cmd != null ? cmd : factory.get();
+    }
+
+    void release(C cmd) {
+        reset(cmd);
+        slots.compareAndSet(slot(), null, cmd);
+    }
+
+    private void reset(C cmd) {
+        for (int i = 0; i < parameters.length; ++i) {
+            var accessor = parameters[i].getAccessor();
+            var value = defaults[i];
+            if (value instanceof List && accessor.get(cmd) instanceof ArrayList) {
+                // Reuse the list that the parser filled instead of allocating a new one
+                //noinspection unchecked
+                var list = (List<Object>) accessor.get(cmd);
+                list.clear();
+                list.addAll((List<?>) value);
+            } else {
+                accessor.set(cmd, copy(value));
+            }
+        }
+    }
+}
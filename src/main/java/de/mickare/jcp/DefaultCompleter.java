@@ -26,6 +26,9 @@ public class DefaultCompleter<V> implements ICompleter {
 
     public @Nullable List<String> getAllAvailablePossibilities(CommandContext<?> context, CommandPipeline.Parameter<?> param, String arg) {
         final var type = param.getField().getType();
+        if (param.getParser() instanceof DefaultParser.EnumParser) {
+            return ((DefaultParser.EnumParser<?>) param.getParser()).getNames().getAll();
+        }
         if (Enum.class.isAssignableFrom(type)) {
             var enumClass = getEnumClass(type);
             return Arrays.stream(enumClass.getEnumConstants()).map(Enum::name).map(String::toLowerCase).toList();
@@ -42,6 +45,10 @@ public class DefaultCompleter<V> implements ICompleter {
     @Override
     public @Nullable List<String> complete(CommandContext<?> context, CommandPipeline.Parameter<?> param, String arg) {
         var result = getAllAvailablePossibilities(context, param, arg);
+        if (param.getParser() instanceof DefaultParser.EnumParser) {
+            var names = ((DefaultParser.EnumParser<?>) param.getParser()).getNames();
+            if (result == names.getAll()) return names.withPrefix(arg);
+        }
         if (result != null) {
             return result.stream().filter(p -> p.startsWith(arg)).collect(Collectors.toList());
         }
@@ -10,14 +10,17 @@
  */
 package de.mickare.jcp;
 
+import de.mickare.jcp.jfr.HelpEvent;
 import de.mickare.jcp.util.StringUtil;
 import lombok.Getter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 public class DefaultHelpFormatter implements IHelpFormatter<String> {
 
@@ -44,7 +47,11 @@ public class DefaultHelpFormatter implements IHelpFormatter<String> {
     }
 
     public static Optional<String> getPipelineDescription(CommandPipeline<?, ?, ?> pipeline) {
-        var usage = pipeline.getCommandClass().getAnnotation(Usage.class);
+        return getPipelineDescription(pipeline.getCommandClass());
+    }
+
+    public static Optional<String> getPipelineDescription(Class<?> commandClass) {
+        var usage = commandClass.getAnnotation(Usage.class);
         if (usage != null) {
             if (!usage.desc().isEmpty()) return Optional.of(usage.desc());
         }
@@ -64,28 +71,116 @@ public class DefaultHelpFormatter implements IHelpFormatter<String> {
 
     @Override
     public String formatUsage(CommandPipeline<?, ?, ?> pipeline) {
+        var event = new HelpEvent();
+        if (!event.isEnabled()) {
+            return format(pipeline, false);
+        }
+        return recordFormat(event, "formatUsage", pipeline, false);
+    }
+
+    @Override
+    public String formatHelp(CommandPipeline<?, ?, ?> pipeline) {
+        var event = new HelpEvent();
+        if (!event.isEnabled()) {
+            return format(pipeline, true);
+        }
+        return recordFormat(event, "formatHelp", pipeline, true);
+    }
+
+    // Only the texts of this class are memoized, subclasses may depend on state other than the settings
+    private String format(CommandPipeline<?, ?, ?> pipeline, boolean help) {
+        Writer writer = help ? this::appendHelp : this::appendUsage;
+        if (getClass() != DefaultHelpFormatter.class) {
+            return render(writer, pipeline);
+        }
+        return pipeline.getRendered(new RenderKey(help, maxWidth, indent), p -> render(writer, p));
+    }
+
+    private String recordFormat(HelpEvent event, String kind, CommandPipeline<?, ?, ?> pipeline, boolean help) {
+        event.begin();
+        event.path = pipeline.getPath();
+        event.kind = kind;
+        try {
+            var text = format(pipeline, help);
+            event.length = text.length();
+            return text;
+        } catch (Throwable t) {
+            event.exception = t.getClass();
+            throw t;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private void recordWrite(String kind, CommandPipeline<?, ?, ?> pipeline, Appendable out, Writer writer)
+            throws IOException {
+        var event = new HelpEvent();
+        if (!event.isEnabled()) {
+            writer.write(pipeline, out);
+            return;
+        }
+        event.begin();
+        event.path = pipeline.getPath();
+        event.kind = kind;
+        event.length = -1;
+        try {
+            writer.write(pipeline, out);
+        } catch (Throwable t) {
+            event.exception = t.getClass();
+            throw t;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static String render(Writer writer, CommandPipeline<?, ?, ?> pipeline) {
         var out = new StringBuilder();
-        out.append("Usage: ")
-                .append(Stream.concat(
-                        pipeline.getAllParents().map(CommandPipeline::getName),
-                        Stream.of(pipeline.getName())
-                ).collect(Collectors.joining(" ")));
+        try {
+            writer.write(pipeline, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static void writePath(CommandPipeline<?, ?, ?> pipeline, Appendable out) throws IOException {
+        var parent = pipeline.getParent();
+        if (parent != null) {
+            writePath(parent, out);
+            out.append(' ');
+        }
+        out.append(pipeline.getName());
+    }
+
+    /**
+     * Writes the usage line to the output without building the whole text first.
+     */
+    public void writeUsage(CommandPipeline<?, ?, ?> pipeline, Appendable out) throws IOException {
+        recordWrite("writeUsage", pipeline, out, this::appendUsage);
+    }
+
+    /**
+     * Writes the help text to the output without building the whole text first.
+     */
+    public void writeHelp(CommandPipeline<?, ?, ?> pipeline, Appendable out) throws IOException {
+        recordWrite("writeHelp", pipeline, out, this::appendHelp);
+    }
+
+    protected void appendUsage(CommandPipeline<?, ?, ?> pipeline, Appendable out) throws IOException {
+        out.append("Usage: ");
+        writePath(pipeline, out);
         if (!pipeline.getOptions().isEmpty()) {
             out.append(" [options]");
         }
-        if (!pipeline.getPositional().isEmpty()) {
-            out.append(" ")
-                    .append(pipeline.getPositional().stream().map(DefaultHelpFormatter::formatPositional)
-                            .collect(Collectors.joining(" ")));
+        for (var param : pipeline.getPositional()) {
+            out.append(" ").append(formatPositional(param));
         }
-        if (!pipeline.getPipelines().isEmpty()) {
+        if (!pipeline.getSubcommands().isEmpty()) {
             out.append(" ").append("{cmd}");
         }
-        return out.toString();
     }
 
-    @Override
-    public String formatHelp(CommandPipeline<?, ?, ?> pipeline) {
+    protected void appendHelp(CommandPipeline<?, ?, ?> pipeline, Appendable out) throws IOException {
 
         //    Usage: <name> <subcommand> [options] [ARG0] [ARG1...] N N [N...]
         //
@@ -101,43 +196,48 @@ public class DefaultHelpFormatter implements IHelpFormatter<String> {
         //               Some other desc
         //
 
-        var builder = new StringBuilder();
-        builder.append(formatUsage(pipeline));
+        if (getClass() == DefaultHelpFormatter.class) {
+            appendUsage(pipeline, out);
+        } else {
+            // Subclasses may override formatUsage
+            out.append(formatUsage(pipeline));
+        }
 
-        getPipelineDescription(pipeline).ifPresent(desc -> {
-            builder.append(System.lineSeparator()).append(System.lineSeparator())
-                    .append(desc);
-        });
+        var desc = getPipelineDescription(pipeline);
+        if (desc.isPresent()) {
+            out.append(System.lineSeparator()).append(System.lineSeparator())
+                    .append(desc.get());
+        }
 
-        if (!pipeline.getPipelines().isEmpty()) {
-            builder.append(System.lineSeparator()).append(System.lineSeparator())
+        if (!pipeline.getSubcommands().isEmpty()) {
+            out.append(System.lineSeparator()).append(System.lineSeparator())
                     .append("Commands:");
-            for (var sub : pipeline.getPipelines().values()) {
-                builder.append(System.lineSeparator());
-                StringUtil.appendIndent(builder, sub.getName(), getPipelineDescription(sub).orElse(""),
+            for (var sub : pipeline.getSubcommands().values()) {
+                out.append(System.lineSeparator());
+                StringUtil.appendIndent(out, sub.getName(), getPipelineDescription(sub.getCommandClass()).orElse(""),
                         indent, maxWidth, 2);
             }
         }
 
         if (!pipeline.getPositional().isEmpty()) {
-            builder.append(System.lineSeparator()).append(System.lineSeparator())
+            out.append(System.lineSeparator()).append(System.lineSeparator())
                     .append("Positional arguments:");
             for (var param : pipeline.getPositional()) {
-                builder.append(System.lineSeparator());
-                StringUtil.appendIndent(builder, param.getSymbol(), param.annotation.desc(),
+                out.append(System.lineSeparator());
+                StringUtil.appendIndent(out, param.getSymbol(), param.annotation.desc(),
                         indent, maxWidth, 2);
             }
         }
 
         if (!pipeline.getOptions().isEmpty()) {
-            builder.append(System.lineSeparator()).append(System.lineSeparator())
+            out.append(System.lineSeparator()).append(System.lineSeparator())
                     .append("Options:");
 
             var sortedOptions = new ArrayList<>(pipeline.getOptions());
             sortedOptions.sort((a, b) -> a.getNames().get(0).compareToIgnoreCase(b.getNames().get(0)));
 
             for (var param : sortedOptions) {
-                builder.append(System.lineSeparator());
+                out.append(System.lineSeparator());
 
                 String header;
                 if (param.isFlag()) {
@@ -146,12 +246,40 @@ public class DefaultHelpFormatter implements IHelpFormatter<String> {
                     header = param.getNames().stream().map(name -> name + " " + param.getSymbol())
                             .collect(Collectors.joining(", "));
                 }
-                StringUtil.appendIndent(builder, header, param.annotation.desc(),
+                StringUtil.appendIndent(out, header, param.annotation.desc(),
                         indent, maxWidth, 2);
             }
         }
+    }
 
-        return builder.toString();
+    @FunctionalInterface
+    private interface Writer {
+        void write(CommandPipeline<?, ?, ?> pipeline, Appendable out) throws IOException;
     }
 
+    // Rendered texts depend on the settings of the formatter
+    private static final class RenderKey {
+        private final boolean help;
+        private final int maxWidth;
+        private final int indent;
+
+        RenderKey(boolean help, int maxWidth, int indent) {
+            this.help = help;
+            this.maxWidth = maxWidth;
+            this.indent = indent;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RenderKey)) return false;
+            var other = (RenderKey) o;
+            return help == other.help && maxWidth == other.maxWidth && indent == other.indent;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(help, maxWidth, indent);
+        }
+    }
 }
@@ -10,11 +10,11 @@
  */
 package de.mickare.jcp;
 
+import de.mickare.jcp.util.PrefixIndex;
 import lombok.Getter;
 import lombok.NonNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.ParameterizedType;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -49,19 +49,10 @@ public final class DefaultParser {
     // *****************************************************************
     // Primitive types
 
-    public static class BooleanParser extends AbstractParser<Boolean> {
+    public static class BooleanParser implements IPrimitiveParser.OfBoolean {
         @Override
-        public Boolean parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
-            return Boolean.parseBoolean(arg);
-        }
-
-        @Override
-        public void write(CommandPipeline.Parameter<?> param, Object obj, Boolean value) throws Exception {
-            if (param.isPrimitive())
-                //noinspection UnnecessaryUnboxing
-                param.field.setBoolean(obj, value.booleanValue());
-            else
-                param.field.setBoolean(obj, value);
+        public boolean parseBoolean(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            return Boolean.parseBoolean(arg.toString());
         }
 
         @Override
@@ -70,19 +61,13 @@ public final class DefaultParser {
         }
     }
 
-    public static class ByteParser extends AbstractParser<Byte> {
+    public static class ByteParser implements IPrimitiveParser.OfByte {
         @Override
-        public Byte parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
-            return Byte.parseByte(arg);
-        }
-
-        @Override
-        public void write(CommandPipeline.Parameter<?> param, Object obj, Byte value) throws Exception {
-            if (param.isPrimitive())
-                //noinspection UnnecessaryUnboxing
-                param.field.setByte(obj, value.byteValue());
-            else
-                param.field.setByte(obj, value);
+        public byte parseByte(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            int value = Integer.parseInt(arg, 0, arg.length(), 10);
+            if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE)
+                throw new NumberFormatException("Value out of range. Value:\"" + arg + "\"");
+            return (byte) value;
         }
 
         @Override
@@ -91,41 +76,23 @@ public final class DefaultParser {
         }
     }
 
-    public static class CharParser extends AbstractParser<Character> {
+    public static class CharParser implements IPrimitiveParser.OfChar {
         @Override
-        public Character parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+        public char parseChar(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
             assert arg.length() == 1;
             return arg.charAt(0);
         }
 
-        @Override
-        public void write(CommandPipeline.Parameter<?> param, Object obj, Character value) throws Exception {
-            if (param.isPrimitive())
-                //noinspection UnnecessaryUnboxing
-                param.field.setChar(obj, value.charValue());
-            else
-                param.field.setChar(obj, value);
-        }
-
         @Override
         public String getHelp(CommandPipeline.Parameter<?> param) {
             return "character: 'a'";
         }
     }
 
-    public static class DoubleParser extends AbstractParser<Double> {
+    public static class DoubleParser implements IPrimitiveParser.OfDouble {
         @Override
-        public Double parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
-            return Double.parseDouble(arg);
-        }
-
-        @Override
-        public void write(CommandPipeline.Parameter<?> param, Object obj, Double value) throws Exception {
-            if (param.isPrimitive())
-                //noinspection UnnecessaryUnboxing
-                param.field.setDouble(obj, value.doubleValue());
-            else
-                param.field.setDouble(obj, value);
+        public double parseDouble(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            return Double.parseDouble(arg.toString());
         }
 
         @Override
@@ -134,19 +101,10 @@ public final class DefaultParser {
         }
     }
 
-    public static class FloatParser extends AbstractParser<Float> {
+    public static class FloatParser implements IPrimitiveParser.OfFloat {
         @Override
-        public Float parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
-            return Float.parseFloat(arg);
-        }
-
-        @Override
-        public void write(CommandPipeline.Parameter<?> param, Object obj, Float value) throws Exception {
-            if (param.isPrimitive())
-                //noinspection UnnecessaryUnboxing
-                param.field.setFloat(obj, value.floatValue());
-            else
-                param.field.setFloat(obj, value);
+        public float parseFloat(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            return Float.parseFloat(arg.toString());
         }
 
         @Override
@@ -155,19 +113,10 @@ public final class DefaultParser {
         }
     }
 
-    public static class IntParser extends AbstractParser<Integer> {
-        @Override
-        public Integer parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
-            return Integer.parseInt(arg);
-        }
-
+    public static class IntParser implements IPrimitiveParser.OfInt {
         @Override
-        public void write(CommandPipeline.Parameter<?> param, Object obj, Integer value) throws Exception {
-            if (param.isPrimitive())
-                //noinspection UnnecessaryUnboxing
-                param.field.setInt(obj, value.intValue());
-            else
-                param.field.setInt(obj, value);
+        public int parseInt(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            return Integer.parseInt(arg, 0, arg.length(), 10);
         }
 
         @Override
@@ -176,19 +125,10 @@ public final class DefaultParser {
         }
     }
 
-    public static class LongParser extends AbstractParser<Long> {
+    public static class LongParser implements IPrimitiveParser.OfLong {
         @Override
-        public Long parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
-            return Long.parseLong(arg);
-        }
-
-        @Override
-        public void write(CommandPipeline.Parameter<?> param, Object obj, Long value) throws Exception {
-            if (param.isPrimitive())
-                //noinspection UnnecessaryUnboxing
-                param.field.setLong(obj, value.longValue());
-            else
-                param.field.setLong(obj, value);
+        public long parseLong(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            return Long.parseLong(arg, 0, arg.length(), 10);
         }
 
         @Override
@@ -197,19 +137,13 @@ public final class DefaultParser {
         }
     }
 
-    public static class ShortParser extends AbstractParser<Short> {
+    public static class ShortParser implements IPrimitiveParser.OfShort {
         @Override
-        public Short parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
-            return Short.parseShort(arg);
-        }
-
-        @Override
-        public void write(CommandPipeline.Parameter<?> param, Object obj, Short value) throws Exception {
-            if (param.isPrimitive())
-                //noinspection UnnecessaryUnboxing
-                param.field.setShort(obj, value.shortValue());
-            else
-                param.field.setShort(obj, value);
+        public short parseShort(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            int value = Integer.parseInt(arg, 0, arg.length(), 10);
+            if (value < Short.MIN_VALUE || value > Short.MAX_VALUE)
+                throw new NumberFormatException("Value out of range. Value:\"" + arg + "\"");
+            return (short) value;
         }
 
         @Override
@@ -258,50 +192,44 @@ public final class DefaultParser {
     public static class ListParser extends AbstractParser<List<?>> {
 
         private static <V> List<V> getOrCreateList(CommandPipeline.Parameter<?> param, Object obj) throws Exception {
-            var data = param.field.get(obj);
+            var data = param.accessor.get(obj);
             if (data instanceof List) {
                 //noinspection unchecked
                 return (List<V>) data;
             } else {
                 var list = new ArrayList<V>();
-                param.field.set(obj, list);
+                param.accessor.set(obj, list);
                 return list;
             }
         }
 
-        private static <V> List<V> parseAndAppendList(CommandPipeline.Parameter<?> param, Object obj,
-                                                      String arg, Class<? extends V> valueClass) throws Exception {
-            var valueParser = param.getParserOf(valueClass);
-            var value = valueParser.parse(param, obj, arg);
-            List<V> list = getOrCreateList(param, obj);
-            if (param.nargs() > 0) {
-                if (list.size() >= param.nargs()) {
-                    throw new IllegalArgumentException();
-                }
-            }
-            list.add(value);
-            return list;
-        }
-
-        private static IParser<?> getSubParser(CommandPipeline.Parameter<?> param) {
-            assert param.field.getType().isAssignableFrom(ArrayList.class);
-            var subtype = (ParameterizedType) param.field.getGenericType();
-            Class<?> subclass = (Class<?>) subtype.getActualTypeArguments()[0];
-            return param.getParserOf(subclass);
+        private static IParser<?> getElementParser(CommandPipeline.Parameter<?> param) {
+            var parser = param.getElementParser();
+            assert parser != null : "not a list parameter " + param.field;
+            return parser;
         }
 
         @Override
         public List<?> parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
-            assert param.field.getType().isAssignableFrom(ArrayList.class);
-            var subtype = (ParameterizedType) param.field.getGenericType();
-            Class<?> subclass = (Class<?>) subtype.getActualTypeArguments()[0];
-            return parseAndAppendList(param, obj, arg, subclass);
+            var value = getElementParser(param).parse(param, obj, arg);
+            List<Object> list = getOrCreateList(param, obj);
+            if (param.nargs() > 0 && list.size() >= param.nargs()) {
+                throw new IllegalArgumentException();
+            }
+            list.add(value);
+            return list;
         }
 
         @Nullable
         @Override
         public String getHelp(CommandPipeline.Parameter<?> param) {
-            return getSubParser(param).getHelp(param);
+            return getElementParser(param).getHelp(param);
+        }
+
+        @Override
+        public boolean canAssignTo(Class<?> type) {
+            // New lists are ArrayLists
+            return type.isAssignableFrom(ArrayList.class);
         }
     }
 
@@ -309,11 +237,15 @@ public final class DefaultParser {
     public static class EnumParser<E extends Enum<E>> extends AbstractParser<E> {
         private final @NonNull Class<E> enumClass;
         private final @NonNull Map<String, E> values;
+        // Lower case names for completion
+        @Getter
+        private final @NonNull PrefixIndex names;
 
         public EnumParser(@NonNull Class<E> enumClass) {
             this.enumClass = enumClass;
             this.values = Arrays.stream(enumClass.getEnumConstants())
                     .collect(Collectors.toUnmodifiableMap(e -> e.name().toLowerCase(), Function.identity()));
+            this.names = PrefixIndex.of(values.keySet());
         }
 
         @Override
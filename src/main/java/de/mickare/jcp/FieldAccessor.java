@@ -0,0 +1,283 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Reads and writes a command field. Resolved once per parameter when the pipeline is built.
+ */
+public abstract class FieldAccessor {
+
+    /**
+     * Resolves exactly typed getter and setter {@link MethodHandle}s for the field and falls back to reflective access
+     * for fields that cannot be unreflected, e.g. final fields or classes that are not open to this library.
+     */
+    public static @NonNull FieldAccessor of(@NonNull Field field) {
+        if (!Modifier.isFinal(field.getModifiers())) {
+            try {
+                var lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+                return new MethodHandleAccessor(field.toString(), field.getType(), lookup.unreflectGetter(field),
+                        lookup.unreflectSetter(field));
+            } catch (IllegalAccessException | SecurityException ignored) {
+                // fallback to reflection
+            }
+        }
+        field.setAccessible(true);
+        return new ReflectiveAccessor(field);
+    }
+
+    /**
+     * Resolves the getter and setter through the given lookup, e.g. the lookup of a generated binder in the package of
+     * the command, which may access private fields of classes in the same module.
+     *
+     * @return the accessor, or null if the field is final or not accessible
+     */
+    public static @Nullable FieldAccessor of(@NonNull MethodHandles.Lookup lookup, @NonNull Class<?> declaringClass,
+                                             @NonNull String name, @NonNull Class<?> type) {
+        try {
+            var privateLookup = MethodHandles.privateLookupIn(declaringClass, lookup);
+            return new MethodHandleAccessor(declaringClass.getName() + "." + name, type,
+                    privateLookup.findGetter(declaringClass, name, type),
+                    privateLookup.findSetter(declaringClass, name, type));
+        } catch (IllegalAccessException | NoSuchFieldException | SecurityException e) {
+            return null;
+        }
+    }
+
+    public abstract Object get(Object obj);
+
+    public abstract void set(Object obj, Object value);
+
+    public void setBoolean(Object obj, boolean value) {
+        set(obj, value);
+    }
+
+    public void setByte(Object obj, byte value) {
+        set(obj, value);
+    }
+
+    public void setChar(Object obj, char value) {
+        set(obj, value);
+    }
+
+    public void setDouble(Object obj, double value) {
+        set(obj, value);
+    }
+
+    public void setFloat(Object obj, float value) {
+        set(obj, value);
+    }
+
+    public void setInt(Object obj, int value) {
+        set(obj, value);
+    }
+
+    public void setLong(Object obj, long value) {
+        set(obj, value);
+    }
+
+    public void setShort(Object obj, short value) {
+        set(obj, value);
+    }
+
+    private static final class MethodHandleAccessor extends FieldAccessor {
+        private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final @NonNull String field;
+        private final @NonNull Class<?> type;
+        // Adapted once to the erased signatures, so that every call is an exact invocation
+        private final @NonNull MethodHandle getter;
+        private final @NonNull MethodHandle setter;
+        private final @Nullable MethodHandle primitiveSetter;
+
+        private MethodHandleAccessor(@NonNull String field, @NonNull Class<?> type, @NonNull MethodHandle getter,
+                                     @NonNull MethodHandle setter) {
+            this.field = field;
+            this.type = type;
+            this.getter = getter.asType(GETTER);
+            this.setter = setter.asType(SETTER);
+            this.primitiveSetter = type.isPrimitive()
+                    ? setter.asType(MethodType.methodType(void.class, Object.class, type))
+                    : null;
+        }
+
+        private static RuntimeException rethrow(Throwable t) {
+            if (t instanceof RuntimeException) throw (RuntimeException) t;
+            if (t instanceof Error) throw (Error) t;
+            return new IllegalStateException(t);
+        }
+
+        @Override
+        public Object get(Object obj) {
+            try {
+                return (Object) getter.invokeExact(obj);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void set(Object obj, Object value) {
+            try {
+                setter.invokeExact(obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setBoolean(Object obj, boolean value) {
+            if (type != boolean.class) {
+                set(obj, value);
+                return;
+            }
+            try {
+                primitiveSetter.invokeExact(obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setByte(Object obj, byte value) {
+            if (type != byte.class) {
+                set(obj, value);
+                return;
+            }
+            try {
+                primitiveSetter.invokeExact(obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setChar(Object obj, char value) {
+            if (type != char.class) {
+                set(obj, value);
+                return;
+            }
+            try {
+                primitiveSetter.invokeExact(obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setDouble(Object obj, double value) {
+            if (type != double.class) {
+                set(obj, value);
+                return;
+            }
+            try {
+                primitiveSetter.invokeExact(obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setFloat(Object obj, float value) {
+            if (type != float.class) {
+                set(obj, value);
+                return;
+            }
+            try {
+                primitiveSetter.invokeExact(obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setInt(Object obj, int value) {
+            if (type != int.class) {
+                set(obj, value);
+                return;
+            }
+            try {
+                primitiveSetter.invokeExact(obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setLong(Object obj, long value) {
+            if (type != long.class) {
+                set(obj, value);
+                return;
+            }
+            try {
+                primitiveSetter.invokeExact(obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public void setShort(Object obj, short value) {
+            if (type != short.class) {
+                set(obj, value);
+                return;
+            }
+            try {
+                primitiveSetter.invokeExact(obj, value);
+            } catch (Throwable t) {
+                throw rethrow(t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "MethodHandleAccessor(" + field + ")";
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static final class ReflectiveAccessor extends FieldAccessor {
+        private final @NonNull Field field;
+
+        @Override
+        public Object get(Object obj) {
+            try {
+                return field.get(obj);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void set(Object obj, Object value) {
+            try {
+                field.set(obj, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ReflectiveAccessor(" + field + ")";
+        }
+    }
+}
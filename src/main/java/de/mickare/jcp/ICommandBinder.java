@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import de.mickare.jcp.util.ReflectionUtil;
+import lombok.Getter;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Instantiates a command and binds its fields without reflection.
+ * <p>
+ * Implementations are generated by the {@code jcp-processor} annotation processor as
+ * {@code <package>.<mangled binary name>_JcpBinder} and picked up by {@link CommandPipeline.Builder}. A binder lists
+ * the options and arguments of the command, so that the builder does not scan the command class. Private fields are
+ * bound through method handles, only final fields are bound reflectively.
+ */
+public interface ICommandBinder<C> {
+    String BINDER_SUFFIX = "_JcpBinder";
+
+    static @NonNull String getBinderClassName(@NonNull Class<?> commandClass) {
+        var packageName = commandClass.getPackageName();
+        var binaryName = commandClass.getName();
+        if (!packageName.isEmpty()) {
+            return packageName + "." + mangle(binaryName.substring(packageName.length() + 1)) + BINDER_SUFFIX;
+        }
+        return mangle(binaryName) + BINDER_SUFFIX;
+    }
+
+    /**
+     * Escapes '_' as "_1" and '$' as "_0", so that e.g. {@code Outer$Inner} and {@code Outer_Inner} get different
+     * binder names.
+     */
+    static @NonNull String mangle(@NonNull String binaryName) {
+        var result = new StringBuilder(binaryName.length() + 8);
+        for (int i = 0; i < binaryName.length(); ++i) {
+            char c = binaryName.charAt(i);
+            if (c == '_') result.append("_1");
+            else if (c == '$') result.append("_0");
+            else result.append(c);
+        }
+        return result.toString();
+    }
+
+    static <C> @Nullable ICommandBinder<C> find(@NonNull Class<C> commandClass) {
+        final Class<?> binderClass;
+        try {
+            binderClass = Class.forName(getBinderClassName(commandClass), true, commandClass.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+        try {
+            //noinspection unchecked
+            var binder = (ICommandBinder<C>) binderClass.getConstructor().newInstance();
+            if (binder.getCommandClass() != commandClass) {
+                throw new RuntimeException("Binder " + binderClass + " does not bind " + commandClass);
+            }
+            return binder;
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to create binder " + binderClass, e);
+        }
+    }
+
+    @NonNull Class<C> getCommandClass();
+
+    @NonNull C newInstance();
+
+    @Nullable FieldAccessor getAccessor(@NonNull Class<?> declaringClass, @NonNull String fieldName);
+
+    /**
+     * Option fields of the command and its superclasses in the order of {@link Class#getDeclaredFields()}, starting
+     * with the topmost superclass, or null if the binder does not list them.
+     */
+    default @Nullable List<Binding<Option>> getOptions() {
+        return null;
+    }
+
+    /**
+     * Argument fields in the same order as {@link #getOptions()}, or null if the binder does not list them.
+     */
+    default @Nullable List<Binding<Argument>> getArguments() {
+        return null;
+    }
+
+    /**
+     * Option or argument field listed by a binder.
+     */
+    @Getter
+    final class Binding<A extends Annotation> {
+        private final @NonNull Class<?> declaringClass;
+        private final @NonNull String fieldName;
+        private final @NonNull A annotation;
+        private final @Nullable FieldAccessor accessor;
+
+        private Binding(@NonNull Class<?> declaringClass, @NonNull String fieldName, @NonNull A annotation,
+                        @Nullable FieldAccessor accessor) {
+            this.declaringClass = declaringClass;
+            this.fieldName = fieldName;
+            this.annotation = annotation;
+            this.accessor = accessor;
+        }
+
+        /**
+         * @param values the attribute values that are not the default, as alternating names and values
+         */
+        public static <A extends Annotation> @NonNull Binding<A> of(@NonNull Class<A> annotationType,
+                                                                    @NonNull Class<?> declaringClass,
+                                                                    @NonNull String fieldName,
+                                                                    @Nullable FieldAccessor accessor,
+                                                                    @NonNull Object... values) {
+            var attributes = new HashMap<String, Object>();
+            for (int i = 0; i + 1 < values.length; i += 2) {
+                attributes.put((String) values[i], values[i + 1]);
+            }
+            return new Binding<>(declaringClass, fieldName, ReflectionUtil.synthesizeAnnotation(annotationType, attributes),
+                    accessor);
+        }
+
+        public @NonNull Field getField() {
+            try {
+                return declaringClass.getDeclaredField(fieldName);
+            } catch (NoSuchFieldException e) {
+                throw new RuntimeException("Invalid command! Binder of " + declaringClass.getName()
+                        + " is outdated, field " + fieldName + " does not exist.", e);
+            }
+        }
+    }
+}
@@ -12,6 +12,12 @@ package de.mickare.jcp;
 
 import java.util.List;
 
+/**
+ * Completes the argument of a parameter.
+ * <p>
+ * Completers are instantiated once per class and pipeline tree through {@link CommandPipeline.CompleterTable} and
+ * shared between parameters, so implementations must be stateless or otherwise thread-safe.
+ */
 public interface ICompleter {
     List<String> complete(CommandContext<?> context, CommandPipeline.Parameter<?> param, String arg);
 }
@@ -20,8 +20,23 @@ public interface IParser<V> {
 
     void parseInto(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception;
 
+    /**
+     * Parses a token that may not yet be materialized as {@link String}, e.g. a slice of a raw command line.
+     */
+    default void parseSequenceInto(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+        parseInto(param, obj, arg.toString());
+    }
+
 
     default @Nullable String getHelp(CommandPipeline.Parameter<?> param) {
         return null;
     }
+
+    /**
+     * Returns whether the values of this parser can be assigned to fields of the given type. Only asked for parsers
+     * that are registered for a supertype of the field type.
+     */
+    default boolean canAssignTo(Class<?> type) {
+        return true;
+    }
 }
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+/**
+ * Parser of a primitive type that parses and writes the value without boxing.
+ * <p>
+ * Pipelines call {@link #parseInto} for every argument, which the specialized interfaces implement by parsing to the
+ * primitive and writing it through {@link FieldAccessor}. The boxed {@link #parse} and {@link #write} are only used
+ * when the value is needed as an object, e.g. for list elements.
+ */
+public interface IPrimitiveParser<V> extends IParser<V> {
+
+    interface OfBoolean extends IPrimitiveParser<Boolean> {
+
+        boolean parseBoolean(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception;
+
+        default void writeBoolean(CommandPipeline.Parameter<?> param, Object obj, boolean value) throws Exception {
+            param.accessor.setBoolean(obj, value);
+        }
+
+        @Override
+        default Boolean parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            return parseBoolean(param, obj, arg);
+        }
+
+        @Override
+        default void write(CommandPipeline.Parameter<?> param, Object obj, Boolean value) throws Exception {
+            if (param.isPrimitive())
+                //noinspection UnnecessaryUnboxing
+                writeBoolean(param, obj, value.booleanValue());
+            else
+                param.accessor.set(obj, value);
+        }
+
+        @Override
+        default void parseInto(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            writeBoolean(param, obj, parseBoolean(param, obj, arg));
+        }
+
+        @Override
+        default void parseSequenceInto(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            writeBoolean(param, obj, parseBoolean(param, obj, arg));
+        }
+    }
+
+    interface OfByte extends IPrimitiveParser<Byte> {
+
+        byte parseByte(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception;
+
+        default void writeByte(CommandPipeline.Parameter<?> param, Object obj, byte value) throws Exception {
+            param.accessor.setByte(obj, value);
+        }
+
+        @Override
+        default Byte parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            return parseByte(param, obj, arg);
+        }
+
+        @Override
+        default void write(CommandPipeline.Parameter<?> param, Object obj, Byte value) throws Exception {
+            if (param.isPrimitive())
+                //noinspection UnnecessaryUnboxing
+                writeByte(param, obj, value.byteValue());
+            else
+                param.accessor.set(obj, value);
+        }
+
+        @Override
+        default void parseInto(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            writeByte(param, obj, parseByte(param, obj, arg));
+        }
+
+        @Override
+        default void parseSequenceInto(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            writeByte(param, obj, parseByte(param, obj, arg));
+        }
+    }
+
+    interface OfChar extends IPrimitiveParser<Character> {
+
+        char parseChar(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception;
+
+        default void writeChar(CommandPipeline.Parameter<?> param, Object obj, char value) throws Exception {
+            param.accessor.setChar(obj, value);
+        }
+
+        @Override
+        default Character parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            return parseChar(param, obj, arg);
+        }
+
+        @Override
+        default void write(CommandPipeline.Parameter<?> param, Object obj, Character value) throws Exception {
+            if (param.isPrimitive())
+                //noinspection UnnecessaryUnboxing
+                writeChar(param, obj, value.charValue());
+            else
+                param.accessor.set(obj, value);
+        }
+
+        @Override
+        default void parseInto(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            writeChar(param, obj, parseChar(param, obj, arg));
+        }
+
+        @Override
+        default void parseSequenceInto(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            writeChar(param, obj, parseChar(param, obj, arg));
+        }
+    }
+
+    interface OfShort extends IPrimitiveParser<Short> {
+
+        short parseShort(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception;
+
+        default void writeShort(CommandPipeline.Parameter<?> param, Object obj, short value) throws Exception {
+            param.accessor.setShort(obj, value);
+        }
+
+        @Override
+        default Short parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            return parseShort(param, obj, arg);
+        }
+
+        @Override
+        default void write(CommandPipeline.Parameter<?> param, Object obj, Short value) throws Exception {
+            if (param.isPrimitive())
+                //noinspection UnnecessaryUnboxing
+                writeShort(param, obj, value.shortValue());
+            else
+                param.accessor.set(obj, value);
+        }
+
+        @Override
+        default void parseInto(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            writeShort(param, obj, parseShort(param, obj, arg));
+        }
+
+        @Override
+        default void parseSequenceInto(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            writeShort(param, obj, parseShort(param, obj, arg));
+        }
+    }
+
+    interface OfInt extends IPrimitiveParser<Integer> {
+
+        int parseInt(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception;
+
+        default void writeInt(CommandPipeline.Parameter<?> param, Object obj, int value) throws Exception {
+            param.accessor.setInt(obj, value);
+        }
+
+        @Override
+        default Integer parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            return parseInt(param, obj, arg);
+        }
+
+        @Override
+        default void write(CommandPipeline.Parameter<?> param, Object obj, Integer value) throws Exception {
+            if (param.isPrimitive())
+                //noinspection UnnecessaryUnboxing
+                writeInt(param, obj, value.intValue());
+            else
+                param.accessor.set(obj, value);
+        }
+
+        @Override
+        default void parseInto(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            writeInt(param, obj, parseInt(param, obj, arg));
+        }
+
+        @Override
+        default void parseSequenceInto(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            writeInt(param, obj, parseInt(param, obj, arg));
+        }
+    }
+
+    interface OfLong extends IPrimitiveParser<Long> {
+
+        long parseLong(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception;
+
+        default void writeLong(CommandPipeline.Parameter<?> param, Object obj, long value) throws Exception {
+            param.accessor.setLong(obj, value);
+        }
+
+        @Override
+        default Long parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            return parseLong(param, obj, arg);
+        }
+
+        @Override
+        default void write(CommandPipeline.Parameter<?> param, Object obj, Long value) throws Exception {
+            if (param.isPrimitive())
+                //noinspection UnnecessaryUnboxing
+                writeLong(param, obj, value.longValue());
+            else
+                param.accessor.set(obj, value);
+        }
+
+        @Override
+        default void parseInto(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            writeLong(param, obj, parseLong(param, obj, arg));
+        }
+
+        @Override
+        default void parseSequenceInto(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            writeLong(param, obj, parseLong(param, obj, arg));
+        }
+    }
+
+    interface OfFloat extends IPrimitiveParser<Float> {
+
+        float parseFloat(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception;
+
+        default void writeFloat(CommandPipeline.Parameter<?> param, Object obj, float value) throws Exception {
+            param.accessor.setFloat(obj, value);
+        }
+
+        @Override
+        default Float parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            return parseFloat(param, obj, arg);
+        }
+
+        @Override
+        default void write(CommandPipeline.Parameter<?> param, Object obj, Float value) throws Exception {
+            if (param.isPrimitive())
+                //noinspection UnnecessaryUnboxing
+                writeFloat(param, obj, value.floatValue());
+            else
+                param.accessor.set(obj, value);
+        }
+
+        @Override
+        default void parseInto(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            writeFloat(param, obj, parseFloat(param, obj, arg));
+        }
+
+        @Override
+        default void parseSequenceInto(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            writeFloat(param, obj, parseFloat(param, obj, arg));
+        }
+    }
+
+    interface OfDouble extends IPrimitiveParser<Double> {
+
+        double parseDouble(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception;
+
+        default void writeDouble(CommandPipeline.Parameter<?> param, Object obj, double value) throws Exception {
+            param.accessor.setDouble(obj, value);
+        }
+
+        @Override
+        default Double parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            return parseDouble(param, obj, arg);
+        }
+
+        @Override
+        default void write(CommandPipeline.Parameter<?> param, Object obj, Double value) throws Exception {
+            if (param.isPrimitive())
+                //noinspection UnnecessaryUnboxing
+                writeDouble(param, obj, value.doubleValue());
+            else
+                param.accessor.set(obj, value);
+        }
+
+        @Override
+        default void parseInto(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            writeDouble(param, obj, parseDouble(param, obj, arg));
+        }
+
+        @Override
+        default void parseSequenceInto(CommandPipeline.Parameter<?> param, Object obj, CharSequence arg) throws Exception {
+            writeDouble(param, obj, parseDouble(param, obj, arg));
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import de.mickare.jcp.util.OrdinalBitSet;
+import lombok.Getter;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * The result of {@link CommandPipeline#parse(String, ArgsTokenizer)}: the chain of resolved pipelines with their
+ * populated command instances and labels, ready to be executed later and on another thread.
+ * <p>
+ * The populated command instances are never executed. Each {@link #execute(Object)} binds the parsed values to fresh
+ * command instances, so that an invocation can be executed many times and concurrently. Lists are copied for every
+ * execution and other values are shared, which is only safe for immutable values. If a value is of another type, e.g.
+ * of a custom parser, the invocation can only be executed once and executes the populated command instances.
+ */
+public final class ParsedInvocation<V, R> {
+    private final @NonNull ArgsTokenizer arguments;
+    // Index of the arguments at the start of the invocation
+    private final int start;
+    @Getter
+    private final @NonNull List<Level<?, V, R>> levels;
+    // Binding plan for fresh command instances, or null if a value cannot be copied
+    private final @Nullable CachedInvocation<V, R> plan;
+    private final AtomicBoolean executed = new AtomicBoolean();
+
+    ParsedInvocation(@NonNull ArgsTokenizer arguments, int start, @NonNull List<Level<?, V, R>> levels) {
+        assert !levels.isEmpty();
+        this.arguments = arguments;
+        this.start = start;
+        this.levels = List.copyOf(levels);
+        this.plan = CachedInvocation.of(this.levels, start);
+    }
+
+    @Nullable CachedInvocation<V, R> getPlan() {
+        return plan;
+    }
+
+    public @NonNull CommandPipeline<?, V, R> getPipeline() {
+        return levels.get(0).getPipeline();
+    }
+
+    /**
+     * Returns the command of the last level, which is executed unless a parent command diverts the execution.
+     */
+    public @NonNull ICommand<V, R> getCommand() {
+        return levels.get(levels.size() - 1).getCommand();
+    }
+
+    public @NonNull List<String> getLabels() {
+        return levels.stream().map(Level::getLabel).collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * Executes the invocation with fresh command instances, or with the populated ones if a value cannot be copied.
+     *
+     * @throws IllegalStateException if a value cannot be copied and the invocation was already executed
+     */
+    public R execute(V data) throws Exception {
+        List<Level<?, V, R>> pending;
+        if (plan != null) {
+            pending = plan.instantiate(start);
+        } else if (!executed.getAndSet(true)) {
+            pending = levels;
+        } else {
+            throw new IllegalStateException("Invocation has values that cannot be copied and was already executed");
+        }
+        var args = arguments.copy();
+        var context = new CommandContext<>(args, data);
+        context.setPending(pending, 0);
+        var first = levels.get(0);
+        return first.getPipeline().execute(context, first.getLabel(), args);
+    }
+
+    public static final class Level<C extends ICommand<V, R>, V, R> {
+        @Getter
+        private final @NonNull CommandPipeline<C, V, R> pipeline;
+        @Getter
+        private final @NonNull C command;
+        @Getter
+        private final @NonNull String label;
+        // Index of the arguments after this level, including the label of the next level
+        @Getter
+        private final int argsIndex;
+        @Getter
+        private final @Nullable CommandPipeline<?, V, R> nextPipeline;
+        @Getter
+        private final @Nullable String nextLabel;
+        // Ordinals of the assigned options, in the word if the pipeline has at most 64 options and else in the set
+        final long boundOptions;
+        final @Nullable OrdinalBitSet moreBoundOptions;
+        // Number of assigned positional parameters, which are always the first ones
+        final int boundPositional;
+
+        Level(@NonNull CommandPipeline<C, V, R> pipeline, @NonNull C command, @NonNull String label, int argsIndex,
+              @Nullable CommandPipeline<?, V, R> nextPipeline, @Nullable String nextLabel, long boundOptions,
+              @Nullable OrdinalBitSet moreBoundOptions, int boundPositional) {
+            this.pipeline = pipeline;
+            this.command = command;
+            this.label = label;
+            this.argsIndex = argsIndex;
+            this.nextPipeline = nextPipeline;
+            this.nextLabel = nextLabel;
+            this.boundOptions = boundOptions;
+            this.moreBoundOptions = moreBoundOptions;
+            this.boundPositional = boundPositional;
+        }
+
+        /**
+         * Returns the parameters that were assigned while parsing this level.
+         */
+        public @NonNull List<CommandPipeline.Parameter<?>> getParameters() {
+            List<CommandPipeline.Parameter<?>> result = new ArrayList<>();
+            var options = pipeline.getOptions();
+            for (int i = 0; i < options.size(); ++i) {
+                if (moreBoundOptions != null ? moreBoundOptions.contains(i) : (boundOptions & (1L << i)) != 0) {
+                    result.add(options.get(i));
+                }
+            }
+            result.addAll(pipeline.getPositional().subList(0, boundPositional));
+            return result;
+        }
+
+        R execute(CommandContext<V> context, ArgsTokenizer args) throws Exception {
+            if (nextPipeline != null) {
+                return command.executeNext(context, pipeline, nextPipeline, nextLabel, args);
+            }
+            return command.execute(context);
+        }
+    }
+}
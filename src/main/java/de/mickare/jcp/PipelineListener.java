@@ -0,0 +1,103 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * Observes the stages of every level of a pipeline. Timestamps are taken with {@link System#nanoTime()}.
+ * <p>
+ * Listeners are called on the executing thread and must be thread-safe. A pipeline without listeners does not take
+ * any timestamps.
+ *
+ * @see CommandPipeline.Builder#listener(PipelineListener)
+ */
+public interface PipelineListener {
+
+    enum Stage {
+        PARSE,
+        DISPATCH,
+        EXECUTE
+    }
+
+    /**
+     * Called after the options of the pipeline were parsed.
+     */
+    default void onOptionsParsed(@NonNull CommandPipeline<?, ?, ?> pipeline, long startNanos, long endNanos) {
+    }
+
+    /**
+     * Called after the positional arguments of the pipeline were parsed.
+     */
+    default void onPositionalParsed(@NonNull CommandPipeline<?, ?, ?> pipeline, long startNanos, long endNanos) {
+    }
+
+    /**
+     * Called after {@link ICommand#executeNext} of the pipeline's command returned, which includes the time of the
+     * subcommand.
+     */
+    default void onDispatched(@NonNull CommandPipeline<?, ?, ?> pipeline, @NonNull CommandPipeline<?, ?, ?> next,
+                              long startNanos, long endNanos) {
+    }
+
+    /**
+     * Called after {@link ICommand#execute} of the pipeline's command returned.
+     */
+    default void onExecuted(@NonNull CommandPipeline<?, ?, ?> pipeline, long startNanos, long endNanos) {
+    }
+
+    /**
+     * Called when a stage of the pipeline failed. A failing subcommand also fails the dispatch of its parents.
+     */
+    default void onFailure(@NonNull CommandPipeline<?, ?, ?> pipeline, @NonNull Stage stage, @NonNull Throwable error,
+                           long startNanos, long endNanos) {
+    }
+
+    /**
+     * Combines the listeners into one, or returns null if there are none.
+     */
+    static @Nullable PipelineListener of(@NonNull List<PipelineListener> listeners) {
+        if (listeners.isEmpty()) return null;
+        if (listeners.size() == 1) return listeners.get(0);
+        final var array = listeners.toArray(new PipelineListener[0]);
+        return new PipelineListener() {
+            @Override
+            public void onOptionsParsed(@NonNull CommandPipeline<?, ?, ?> pipeline, long startNanos, long endNanos) {
+                for (var listener : array) listener.onOptionsParsed(pipeline, startNanos, endNanos);
+            }
+
+            @Override
+            public void onPositionalParsed(@NonNull CommandPipeline<?, ?, ?> pipeline, long startNanos, long endNanos) {
+                for (var listener : array) listener.onPositionalParsed(pipeline, startNanos, endNanos);
+            }
+
+            @Override
+            public void onDispatched(@NonNull CommandPipeline<?, ?, ?> pipeline, @NonNull CommandPipeline<?, ?, ?> next,
+                                     long startNanos, long endNanos) {
+                for (var listener : array) listener.onDispatched(pipeline, next, startNanos, endNanos);
+            }
+
+            @Override
+            public void onExecuted(@NonNull CommandPipeline<?, ?, ?> pipeline, long startNanos, long endNanos) {
+                for (var listener : array) listener.onExecuted(pipeline, startNanos, endNanos);
+            }
+
+            @Override
+            public void onFailure(@NonNull CommandPipeline<?, ?, ?> pipeline, @NonNull Stage stage,
+                                  @NonNull Throwable error, long startNanos, long endNanos) {
+                for (var listener : array) listener.onFailure(pipeline, stage, error, startNanos, endNanos);
+            }
+        };
+    }
+}
@@ -0,0 +1,547 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import de.mickare.jcp.util.ReflectionUtil;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the options and arguments of a pipeline tree. A tree can be built from a snapshot without
+ * scanning the command classes for annotations: fields are looked up by name and the annotations are synthesized
+ * from the stored attribute values.
+ * <p>
+ * Each command is stored with a CRC32 fingerprint of the class files of the command class and its superclasses.
+ * A command whose classes changed is built by scanning the annotations as usual.
+ * <p>
+ * Lazy subcommands that are not built yet are not built for writing. They are copied from the previous schema, or
+ * written as placeholders that never match, and the file is rewritten once they are built and turn out to be stale.
+ *
+ * @see CommandPipeline.Builder#buildWithSchema(Path)
+ */
+public final class PipelineSchema {
+    // "JCPS"
+    private static final int MAGIC = 0x4A435053;
+    private static final int VERSION = 1;
+    private static final long UNKNOWN = -1L;
+
+    private static final byte BOOLEAN = 'Z';
+    private static final byte INT = 'I';
+    private static final byte STRING = 'S';
+    private static final byte STRINGS = '[';
+    private static final byte CLASS = 'C';
+
+    private static final ClassValue<Long> FINGERPRINTS = new ClassValue<>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+            return fingerprint(type);
+        }
+    };
+
+    // Payload the nodes were read from, so that nodes of lazy subcommands can be written back unchanged
+    private final byte @Nullable [] data;
+    private final @NonNull Node root;
+    // Set when a part of the schema does not match the command classes
+    private volatile boolean stale;
+    // File and pipeline the schema is rewritten from when it is stale
+    private @Nullable Path file;
+    private @Nullable CommandPipeline<?, ?, ?> pipeline;
+
+    private PipelineSchema(@NonNull byte[] data, @NonNull ByteBuffer buffer) {
+        this.data = data;
+        this.root = new Node(buffer);
+        this.stale = false;
+    }
+
+    private PipelineSchema() {
+        this.data = null;
+        this.root = new Node("");
+        this.stale = true;
+    }
+
+    /**
+     * Returns a stale schema whose nodes match no command.
+     */
+    static @NonNull PipelineSchema empty() {
+        return new PipelineSchema();
+    }
+
+    @NonNull Node getRoot() {
+        return root;
+    }
+
+    boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Sets the file and the pipeline built from this schema, which are used by {@link #rewriteIfStale()}.
+     */
+    synchronized void attach(@NonNull Path file, @NonNull CommandPipeline<?, ?, ?> pipeline) {
+        this.file = file;
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * Writes the attached pipeline to the attached file if a part of the schema turned out to be stale.
+     */
+    synchronized void rewriteIfStale() throws IOException {
+        if (!stale || file == null || pipeline == null) return;
+        stale = false;
+        try {
+            write(pipeline, file, this);
+        } catch (IOException | RuntimeException e) {
+            stale = true;
+            throw e;
+        }
+    }
+
+    // *****************************************************************
+    // Fingerprints
+
+    private static long fingerprint(Class<?> type) {
+        var loader = type.getClassLoader();
+        if (loader == null) return UNKNOWN;
+        try (InputStream in = loader.getResourceAsStream(type.getName().replace('.', '/') + ".class")) {
+            if (in == null) return UNKNOWN;
+            var crc = new CRC32();
+            crc.update(in.readAllBytes());
+            return crc.getValue();
+        } catch (IOException e) {
+            return UNKNOWN;
+        }
+    }
+
+    // Classes of the command that declare options or arguments, without the classes of the platform
+    private static List<Class<?>> hierarchy(Class<?> commandClass) {
+        List<Class<?>> result = new ArrayList<>();
+        for (Class<?> cls = commandClass; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            if (cls.getClassLoader() != null) result.add(cls);
+        }
+        return result;
+    }
+
+    // *****************************************************************
+    // Writing
+
+    /**
+     * Writes the schema of the pipeline and all its subcommands to the file, replacing it atomically if possible.
+     * Lazy subcommands that are not built yet are written as placeholders that never match.
+     */
+    public static void write(@NonNull CommandPipeline<?, ?, ?> pipeline, @NonNull Path file) throws IOException {
+        write(pipeline, file, null);
+    }
+
+    private static void write(CommandPipeline<?, ?, ?> pipeline, Path file, @Nullable PipelineSchema previous)
+            throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeNode(out, pipeline, previous != null ? previous.root : null);
+        out.flush();
+        var crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        out.flush();
+
+        var dir = file.toAbsolutePath().getParent();
+        var tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, bytes.toByteArray());
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void writeNode(DataOutputStream out, CommandPipeline<?, ?, ?> pipeline, @Nullable Node previous)
+            throws IOException {
+        writeString(out, pipeline.getName());
+        writeString(out, pipeline.getCommandClass().getName());
+        var classes = hierarchy(pipeline.getCommandClass());
+        out.writeInt(classes.size());
+        for (var cls : classes) {
+            writeString(out, cls.getName());
+            out.writeLong(FINGERPRINTS.get(cls));
+        }
+        out.writeInt(pipeline.getOptions().size());
+        for (var param : pipeline.getOptions()) {
+            writeParameter(out, param);
+        }
+        out.writeInt(pipeline.getPositional().size());
+        for (var param : pipeline.getPositional()) {
+            writeParameter(out, param);
+        }
+        var subcommands = pipeline.getSubcommands().values();
+        out.writeInt(subcommands.size());
+        for (var sub : subcommands) {
+            var previousSub = previous != null ? previous.subcommands.get(sub.getName()) : null;
+            if (sub.isBuilt()) {
+                writeNode(out, sub.get(), previousSub);
+            } else if (previousSub != null && previousSub.raw != null
+                    && previousSub.className.equals(sub.getCommandClass().getName())) {
+                // Checked when the subcommand is built
+                previousSub.raw.writeTo(out);
+            } else {
+                writePlaceholder(out, sub.getName(), sub.getCommandClass());
+            }
+        }
+    }
+
+    // Node without classes, which never matches
+    private static void writePlaceholder(DataOutputStream out, String name, Class<?> commandClass) throws IOException {
+        writeString(out, name);
+        writeString(out, commandClass.getName());
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeInt(0);
+    }
+
+    private static void writeParameter(DataOutputStream out, CommandPipeline.Parameter<?> param) throws IOException {
+        var field = param.getField();
+        writeString(out, field.getDeclaringClass().getName());
+        writeString(out, field.getName());
+        writeString(out, field.getType().getName());
+
+        var annotation = param.getAnnotation();
+        var methods = annotation.annotationType().getDeclaredMethods();
+        Arrays.sort(methods, Comparator.comparing(Method::getName));
+        out.writeInt(methods.length);
+        for (var method : methods) {
+            writeString(out, method.getName());
+            final Object value;
+            try {
+                value = method.invoke(annotation);
+            } catch (ReflectiveOperationException e) {
+                throw new IOException("Failed to read " + method, e);
+            }
+            writeValue(out, value);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof String[]) {
+            var values = (String[]) value;
+            out.writeByte(STRINGS);
+            out.writeInt(values.length);
+            for (var v : values) {
+                writeString(out, v);
+            }
+        } else if (value instanceof Class) {
+            out.writeByte(CLASS);
+            writeString(out, ((Class<?>) value).getName());
+        } else {
+            throw new IOException("Unsupported annotation value: " + value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // *****************************************************************
+    // Reading
+
+    /**
+     * Reads the schema from a memory mapped file. The payload is copied once, so that the file is not mapped while
+     * it is rewritten.
+     *
+     * @return the schema, or null if the file does not exist or is not a valid schema
+     */
+    public static @Nullable PipelineSchema read(@NonNull Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static @Nullable PipelineSchema decode(ByteBuffer mapped) {
+        final int end = mapped.limit() - Long.BYTES;
+        if (end < 2 * Integer.BYTES) return null;
+        var data = new byte[end];
+        mapped.get(0, data);
+        var crc = new CRC32();
+        crc.update(data);
+        if (crc.getValue() != mapped.getLong(end)) return null;
+        var buffer = ByteBuffer.wrap(data);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+        try {
+            var schema = new PipelineSchema(data, buffer);
+            return buffer.hasRemaining() ? null : schema;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) throw new IllegalArgumentException("invalid string length");
+        var slice = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+
+    private static int readCount(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) throw new IllegalArgumentException("invalid count");
+        return count;
+    }
+
+    private static Object readValue(ByteBuffer buffer) {
+        var tag = buffer.get();
+        switch (tag) {
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case INT:
+                return buffer.getInt();
+            case STRING:
+            case CLASS:
+                return readString(buffer);
+            case STRINGS:
+                var values = new String[readCount(buffer)];
+                for (int i = 0; i < values.length; ++i) {
+                    values[i] = readString(buffer);
+                }
+                return values;
+            default:
+                throw new IllegalArgumentException("invalid value tag " + tag);
+        }
+    }
+
+    /**
+     * Field and annotation of an option or argument.
+     */
+    static final class Binding<A extends Annotation> {
+        final @NonNull Field field;
+        final @NonNull A annotation;
+
+        private Binding(@NonNull Field field, @NonNull A annotation) {
+            this.field = field;
+            this.annotation = annotation;
+        }
+    }
+
+    private static final class Entry {
+        private final String declaringClass;
+        private final String fieldName;
+        private final String fieldType;
+        // Class values are kept as names until they are bound
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        private Entry(ByteBuffer buffer) {
+            this.declaringClass = readString(buffer);
+            this.fieldName = readString(buffer);
+            this.fieldType = readString(buffer);
+            int count = readCount(buffer);
+            for (int i = 0; i < count; ++i) {
+                attributes.put(readString(buffer), readValue(buffer));
+            }
+        }
+
+        private <A extends Annotation> @Nullable Binding<A> bind(Class<?> commandClass, Class<A> annotationType) {
+            Class<?> owner = commandClass;
+            while (owner != null && !owner.getName().equals(declaringClass)) owner = owner.getSuperclass();
+            if (owner == null) return null;
+            final Field field;
+            try {
+                field = owner.getDeclaredField(fieldName);
+            } catch (NoSuchFieldException e) {
+                return null;
+            }
+            if (!field.getType().getName().equals(fieldType)) return null;
+
+            Map<String, Object> values = new HashMap<>(attributes);
+            try {
+                for (var method : annotationType.getDeclaredMethods()) {
+                    if (method.getReturnType() == Class.class && values.get(method.getName()) instanceof String) {
+                        var name = (String) values.get(method.getName());
+                        values.put(method.getName(), Class.forName(name, false, commandClass.getClassLoader()));
+                    }
+                }
+                return new Binding<>(field, ReflectionUtil.synthesizeAnnotation(annotationType, values));
+            } catch (ClassNotFoundException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private final class Range {
+        private final int start;
+        private final int end;
+
+        private Range(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            assert data != null;
+            out.write(data, start, end - start);
+        }
+    }
+
+    /**
+     * Schema of one pipeline.
+     */
+    final class Node {
+        private final @NonNull String name;
+        private final @NonNull String className;
+        private final @NonNull String[] classes;
+        private final long[] fingerprints;
+        private final @NonNull List<Entry> options;
+        private final @NonNull List<Entry> positional;
+        private final @NonNull Map<String, Node> subcommands;
+        // Bytes of the node in the payload, null for placeholders
+        private final @Nullable Range raw;
+
+        private Node(String name) {
+            this.name = name;
+            this.className = "";
+            this.classes = new String[0];
+            this.fingerprints = new long[0];
+            this.options = List.of();
+            this.positional = List.of();
+            this.subcommands = Map.of();
+            this.raw = null;
+        }
+
+        private Node(ByteBuffer buffer) {
+            final int start = buffer.position();
+            this.name = readString(buffer);
+            this.className = readString(buffer);
+            int classCount = readCount(buffer);
+            this.classes = new String[classCount];
+            this.fingerprints = new long[classCount];
+            for (int i = 0; i < classCount; ++i) {
+                classes[i] = readString(buffer);
+                fingerprints[i] = buffer.getLong();
+            }
+            this.options = readEntries(buffer);
+            this.positional = readEntries(buffer);
+            int subCount = readCount(buffer);
+            Map<String, Node> subs = new LinkedHashMap<>();
+            for (int i = 0; i < subCount; ++i) {
+                var sub = new Node(buffer);
+                subs.put(sub.name, sub);
+            }
+            this.subcommands = subs;
+            this.raw = new Range(start, buffer.position());
+        }
+
+        private List<Entry> readEntries(ByteBuffer buffer) {
+            int count = readCount(buffer);
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                entries.add(new Entry(buffer));
+            }
+            return entries;
+        }
+
+        void markStale() {
+            stale = true;
+        }
+
+        /**
+         * Returns true if the node was written for the command class and the classes did not change since.
+         */
+        boolean matches(@NonNull String name, @NonNull Class<?> commandClass) {
+            if (!this.name.equals(name) || !className.equals(commandClass.getName())) return false;
+            var current = hierarchy(commandClass);
+            if (current.size() != classes.length) return false;
+            for (int i = 0; i < classes.length; ++i) {
+                var cls = current.get(i);
+                long fingerprint = FINGERPRINTS.get(cls);
+                if (!cls.getName().equals(classes[i]) || fingerprint == UNKNOWN || fingerprint != fingerprints[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns the schema of the subcommand, or marks the schema stale and returns a placeholder.
+         */
+        @NonNull Node getSubcommand(@NonNull String name) {
+            var node = subcommands.get(name);
+            if (node == null) {
+                markStale();
+                return new Node(name);
+            }
+            return node;
+        }
+
+        /**
+         * Rewrites the file of the schema if the schema is stale, e.g. after a lazy subcommand was built.
+         */
+        void rewriteIfStale() throws IOException {
+            PipelineSchema.this.rewriteIfStale();
+        }
+
+        int getSubcommandCount() {
+            return subcommands.size();
+        }
+
+        @Nullable List<Binding<Option>> bindOptions(@NonNull Class<?> commandClass) {
+            return bind(options, commandClass, Option.class);
+        }
+
+        @Nullable List<Binding<Argument>> bindPositional(@NonNull Class<?> commandClass) {
+            return bind(positional, commandClass, Argument.class);
+        }
+
+        private <A extends Annotation> @Nullable List<Binding<A>> bind(List<Entry> entries, Class<?> commandClass,
+                                                                        Class<A> annotationType) {
+            List<Binding<A>> result = new ArrayList<>(entries.size());
+            for (var entry : entries) {
+                var binding = entry.bind(commandClass, annotationType);
+                if (binding == null) return null;
+                result.add(binding);
+            }
+            return result;
+        }
+    }
+}
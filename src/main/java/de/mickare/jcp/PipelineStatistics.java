@@ -0,0 +1,140 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Listener that aggregates counters and latencies per pipeline without locking.
+ */
+public class PipelineStatistics implements PipelineListener {
+    private final Map<CommandPipeline<?, ?, ?>, Counters> counters = new ConcurrentHashMap<>();
+
+    private Counters counters(CommandPipeline<?, ?, ?> pipeline) {
+        var result = counters.get(pipeline);
+        if (result == null) {
+            result = counters.computeIfAbsent(pipeline, p -> new Counters());
+        }
+        return result;
+    }
+
+    @Override
+    public void onOptionsParsed(@NonNull CommandPipeline<?, ?, ?> pipeline, long startNanos, long endNanos) {
+        counters(pipeline).options.record(endNanos - startNanos);
+    }
+
+    @Override
+    public void onPositionalParsed(@NonNull CommandPipeline<?, ?, ?> pipeline, long startNanos, long endNanos) {
+        counters(pipeline).positional.record(endNanos - startNanos);
+    }
+
+    @Override
+    public void onDispatched(@NonNull CommandPipeline<?, ?, ?> pipeline, @NonNull CommandPipeline<?, ?, ?> next,
+                             long startNanos, long endNanos) {
+        counters(pipeline).dispatch.record(endNanos - startNanos);
+    }
+
+    @Override
+    public void onExecuted(@NonNull CommandPipeline<?, ?, ?> pipeline, long startNanos, long endNanos) {
+        counters(pipeline).execute.record(endNanos - startNanos);
+    }
+
+    @Override
+    public void onFailure(@NonNull CommandPipeline<?, ?, ?> pipeline, @NonNull Stage stage, @NonNull Throwable error,
+                          long startNanos, long endNanos) {
+        counters(pipeline).failures[stage.ordinal()].increment();
+    }
+
+    public void reset() {
+        counters.clear();
+    }
+
+    /**
+     * Returns the current values of all pipelines that were observed, sorted by path.
+     */
+    public @NonNull Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> result = new TreeMap<>();
+        counters.forEach((pipeline, c) -> result.put(pipeline.getPath(), c.snapshot(pipeline.getPath())));
+        return result;
+    }
+
+    private static final class Timer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        Timing snapshot() {
+            return new Timing(count.sum(), totalNanos.sum(), maxNanos.get());
+        }
+    }
+
+    private static final class Counters {
+        private final Timer options = new Timer();
+        private final Timer positional = new Timer();
+        private final Timer dispatch = new Timer();
+        private final Timer execute = new Timer();
+        private final LongAdder[] failures = new LongAdder[Stage.values().length];
+
+        Counters() {
+            for (int i = 0; i < failures.length; ++i) failures[i] = new LongAdder();
+        }
+
+        Snapshot snapshot(String path) {
+            return new Snapshot(path, options.snapshot(), positional.snapshot(), dispatch.snapshot(),
+                    execute.snapshot(), failures[Stage.PARSE.ordinal()].sum(),
+                    failures[Stage.DISPATCH.ordinal()].sum(), failures[Stage.EXECUTE.ordinal()].sum());
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Timing {
+        private final long count;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) totalNanos / count;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + (long) getMeanNanos() + "ns, max=" + maxNanos + "ns";
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static final class Snapshot {
+        private final @NonNull String path;
+        private final @NonNull Timing options;
+        private final @NonNull Timing positional;
+        private final @NonNull Timing dispatch;
+        private final @NonNull Timing execute;
+        private final long parseFailures;
+        private final long dispatchFailures;
+        private final long executeFailures;
+    }
+}
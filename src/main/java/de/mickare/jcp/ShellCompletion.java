@@ -0,0 +1,309 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates bash and zsh completion scripts from a pipeline tree, so that completing subcommands, options and
+ * choices does not start the JVM.
+ * <p>
+ * The scripts know the subcommand and option names, which options take a value, which options may be repeated and
+ * the names of enum values. Only parameters with a custom {@link ICompleter} call the fallback command, which gets
+ * the words after the program name up to the word that is completed, and must print one candidate per line, e.g. by
+ * calling {@link CommandPipeline#complete(Object, String, ArgsTokenizer)}.
+ * <p>
+ * Lazy subcommands are built when the script is generated.
+ */
+public final class ShellCompletion {
+
+    public enum Shell {
+        BASH,
+        ZSH
+    }
+
+    private ShellCompletion() {
+    }
+
+    public static @NonNull String generate(@NonNull CommandPipeline<?, ?, ?> pipeline, @NonNull Shell shell,
+                                           @Nullable String fallbackCommand) {
+        var out = new StringBuilder();
+        try {
+            write(pipeline, shell, fallbackCommand, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes the completion script for the program named like the pipeline.
+     *
+     * @param fallbackCommand shell command that is called for parameters with a custom completer, which is inserted
+     *                        into the script as is, or null to not complete these parameters
+     */
+    public static void write(@NonNull CommandPipeline<?, ?, ?> pipeline, @NonNull Shell shell,
+                             @Nullable String fallbackCommand, @NonNull Appendable out) throws IOException {
+        var program = pipeline.getName();
+        var prefix = "_" + program.replaceAll("[^A-Za-z0-9_]", "_");
+        List<CommandPipeline<?, ?, ?>> nodes = new ArrayList<>();
+        collect(pipeline, nodes);
+
+        if (shell == Shell.ZSH) {
+            out.append("#compdef ").append(program).append('\n');
+        }
+        out.append("# ").append(shell == Shell.ZSH ? "zsh" : "bash").append(" completion for ").append(program)
+                .append(", generated by jcp\n\n");
+
+        writeAdd(out, prefix);
+        writeFallback(out, prefix, fallbackCommand);
+        writeComplete(out, prefix, nodes);
+
+        if (shell == Shell.ZSH) {
+            out.append(prefix).append("_zsh() {\n")
+                    .append("    local -a candidates\n")
+                    .append("    ").append(prefix).append("_complete \"${(@)words[2,CURRENT]}\"\n")
+                    .append("    compadd -- \"${candidates[@]}\"\n")
+                    .append("}\n\n")
+                    .append("compdef ").append(prefix).append("_zsh ").append(quote(program)).append('\n');
+        } else {
+            out.append(prefix).append("_bash() {\n")
+                    .append("    local -a candidates\n")
+                    .append("    ").append(prefix).append("_complete \"${COMP_WORDS[@]:1:COMP_CWORD}\"\n")
+                    .append("    COMPREPLY=(\"${candidates[@]}\")\n")
+                    .append("}\n\n")
+                    .append("complete -F ").append(prefix).append("_bash ").append(quote(program)).append('\n');
+        }
+    }
+
+    private static void collect(CommandPipeline<?, ?, ?> pipeline, List<CommandPipeline<?, ?, ?>> nodes) {
+        nodes.add(pipeline);
+        for (var sub : pipeline.getPipelines().values()) {
+            collect(sub, nodes);
+        }
+    }
+
+    // Quotes a word for the shell
+    private static String quote(String word) {
+        return "'" + word.replace("'", "'\\''") + "'";
+    }
+
+    private static void appendWords(Appendable out, List<String> words) throws IOException {
+        for (var word : words) {
+            out.append(' ').append(quote(word));
+        }
+    }
+
+    private static void writeAdd(Appendable out, String prefix) throws IOException {
+        out.append("# Adds the candidates that start with the first argument\n")
+                .append(prefix).append("_add() {\n")
+                .append("    local cur=\"$1\" c\n")
+                .append("    shift\n")
+                .append("    for c in \"$@\"; do\n")
+                .append("        case \"$c\" in \"$cur\"*) candidates+=(\"$c\") ;; esac\n")
+                .append("    done\n")
+                .append("}\n\n");
+    }
+
+    private static void writeFallback(Appendable out, String prefix, @Nullable String command) throws IOException {
+        out.append("# Asks the program for the candidates of parameters with a custom completer\n")
+                .append(prefix).append("_fallback() {\n");
+        if (command == null) {
+            out.append("    :\n");
+        } else {
+            out.append("    local line\n")
+                    .append("    while IFS= read -r line; do\n")
+                    .append("        candidates+=(\"$line\")\n")
+                    .append("    done < <(").append(command).append(" \"$@\" 2>/dev/null)\n");
+        }
+        out.append("}\n\n");
+    }
+
+    private static void writeComplete(Appendable out, String prefix, List<CommandPipeline<?, ?, ?>> nodes)
+            throws IOException {
+        out.append("# Completes the last argument after walking the previous arguments through the commands\n")
+                .append(prefix).append("_complete() {\n")
+                .append("    local -a all\n")
+                .append("    all=(\"$@\")\n")
+                .append("    local node=0 pos=0 seen=' ' expect='' w\n")
+                .append("    while [ $# -gt 1 ]; do\n")
+                .append("        w=\"$1\"\n")
+                .append("        shift\n")
+                .append("        if [ -n \"$expect\" ]; then\n")
+                .append("            expect=''\n")
+                .append("            continue\n")
+                .append("        fi\n")
+                .append("        case \"$node\" in\n");
+        for (int n = 0; n < nodes.size(); ++n) {
+            writeWalk(out, nodes, n);
+        }
+        out.append("        esac\n")
+                .append("    done\n")
+                .append("    local cur=\"$1\"\n")
+                .append("    case \"$node\" in\n");
+        for (int n = 0; n < nodes.size(); ++n) {
+            writeCandidates(out, prefix, nodes, n);
+        }
+        out.append("    esac\n")
+                .append("}\n\n");
+    }
+
+    // Number of positional arguments before the subcommand, or -1 if the last argument is unlimited
+    private static int fixedPositional(CommandPipeline<?, ?, ?> pipeline) {
+        int count = 0;
+        for (var pos : pipeline.getPositional()) {
+            if (pos.nargs() <= 0) return -1;
+            count += pos.nargs();
+        }
+        return count;
+    }
+
+    private static void writeWalk(Appendable out, List<CommandPipeline<?, ?, ?>> nodes, int n) throws IOException {
+        var pipeline = nodes.get(n);
+        out.append("        ").append(Integer.toString(n)).append(")\n");
+        if (!pipeline.getOptions().isEmpty()) {
+            out.append("            if [ $pos -eq 0 ]; then\n")
+                    .append("                case \"$w\" in\n");
+            var options = pipeline.getOptions();
+            for (int i = 0; i < options.size(); ++i) {
+                var opt = options.get(i);
+                out.append("                ").append(String.join("|", opt.getNames().stream()
+                                .map(ShellCompletion::quote).toList()))
+                        .append(") seen=\"${seen}").append(Integer.toString(i)).append(" \"");
+                if (!opt.isFlag()) {
+                    out.append("; expect=o").append(Integer.toString(i));
+                }
+                out.append("; continue ;;\n");
+            }
+            out.append("                -*) continue ;;\n")
+                    .append("                esac\n")
+                    .append("            fi\n");
+        }
+        int fixed = fixedPositional(pipeline);
+        if (fixed < 0) {
+            out.append("            pos=$((pos + 1))\n");
+        } else {
+            if (fixed > 0) {
+                out.append("            if [ $pos -lt ").append(Integer.toString(fixed)).append(" ]; then\n")
+                        .append("                pos=$((pos + 1))\n")
+                        .append("                continue\n")
+                        .append("            fi\n");
+            }
+            out.append("            case \"$w\" in\n");
+            for (var sub : pipeline.getPipelines().values()) {
+                out.append("            ").append(quote(sub.getName())).append(") node=")
+                        .append(Integer.toString(nodes.indexOf(sub))).append("; pos=0; seen=' ' ;;\n");
+            }
+            out.append("            esac\n");
+        }
+        out.append("            ;;\n");
+    }
+
+    private static void writeCandidates(Appendable out, String prefix, List<CommandPipeline<?, ?, ?>> nodes, int n)
+            throws IOException {
+        var pipeline = nodes.get(n);
+        out.append("    ").append(Integer.toString(n)).append(")\n");
+
+        // Value of an option
+        var options = pipeline.getOptions();
+        boolean hasValues = options.stream().anyMatch(opt -> !opt.isFlag());
+        if (hasValues) {
+            out.append("        case \"$expect\" in\n");
+            for (int i = 0; i < options.size(); ++i) {
+                var opt = options.get(i);
+                if (opt.isFlag()) continue;
+                out.append("        o").append(Integer.toString(i)).append(") ");
+                writeValues(out, prefix, opt);
+                out.append("; return ;;\n");
+            }
+            out.append("        esac\n");
+        }
+
+        // Option names
+        if (!options.isEmpty()) {
+            out.append("        if [ $pos -eq 0 ]; then\n")
+                    .append("            case \"$cur\" in\n")
+                    .append("            -*)\n");
+            for (int i = 0; i < options.size(); ++i) {
+                var opt = options.get(i);
+                if (opt.getAnnotation().repeatable()) {
+                    out.append("                ").append(prefix).append("_add \"$cur\"");
+                    appendWords(out, opt.getNames());
+                    out.append('\n');
+                } else {
+                    out.append("                case \"$seen\" in *' ").append(Integer.toString(i))
+                            .append(" '*) ;; *) ").append(prefix).append("_add \"$cur\"");
+                    appendWords(out, opt.getNames());
+                    out.append(" ;; esac\n");
+                }
+            }
+            out.append("                return ;;\n")
+                    .append("            esac\n")
+                    .append("        fi\n");
+        }
+
+        // Positional arguments, then subcommands
+        var positional = pipeline.getPositional();
+        int slot = 0;
+        for (var pos : positional) {
+            if (pos.nargs() <= 0) {
+                out.append("        ");
+                writeValues(out, prefix, pos);
+                out.append('\n');
+                break;
+            }
+            slot += pos.nargs();
+            out.append("        if [ $pos -lt ").append(Integer.toString(slot)).append(" ]; then ");
+            writeValues(out, prefix, pos);
+            out.append("; return; fi\n");
+        }
+        if (fixedPositional(pipeline) >= 0 && !pipeline.getSubcommands().isEmpty()) {
+            out.append("        ").append(prefix).append("_add \"$cur\"");
+            appendWords(out, new ArrayList<>(pipeline.getSubcommands().keySet()));
+            out.append('\n');
+        }
+        out.append("        ;;\n");
+    }
+
+    private static void writeValues(Appendable out, String prefix, CommandPipeline.Parameter<?> param)
+            throws IOException {
+        if (param.getCompleter().getClass() != DefaultCompleter.class) {
+            out.append(prefix).append("_fallback \"${all[@]}\"");
+            return;
+        }
+        var choices = choices(param);
+        if (choices.isEmpty()) {
+            out.append(":");
+        } else {
+            out.append(prefix).append("_add \"$cur\"");
+            appendWords(out, choices);
+        }
+    }
+
+    // Values that the default completer offers without a context
+    private static List<String> choices(CommandPipeline.Parameter<?> param) {
+        var parser = param.getElementParser() != null ? param.getElementParser() : param.getParser();
+        if (parser instanceof DefaultParser.EnumParser) {
+            return ((DefaultParser.EnumParser<?>) parser).getNames().getAll();
+        }
+        var type = param.getField().getType();
+        if (type == Boolean.class || type == boolean.class) {
+            return List.of("true", "false");
+        }
+        return List.of();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.daemon;
+
+import lombok.NonNull;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Forwards the arguments and the environment to a {@link DaemonServer} and copies the output of the invocation to
+ * the given streams.
+ * <p>
+ * Usage: {@code java de.mickare.jcp.daemon.DaemonClient <socket> [args...]}
+ */
+public final class DaemonClient {
+
+    private DaemonClient() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: DaemonClient <socket> [args...]");
+            System.exit(2);
+        }
+        var argv = Arrays.asList(args).subList(1, args.length);
+        System.exit(run(Path.of(args[0]), argv, System.getenv(), System.out, System.err));
+    }
+
+    /**
+     * Executes the invocation on the daemon.
+     *
+     * @return the exit code of the invocation
+     * @throws EOFException if the daemon closed the connection without an exit code
+     */
+    public static int run(@NonNull Path socket, @NonNull List<String> args, @NonNull Map<String, String> env,
+                          @NonNull OutputStream out, @NonNull OutputStream err) throws IOException {
+        try (var channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            var request = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            request.writeInt(DaemonProtocol.MAGIC);
+            request.writeInt(DaemonProtocol.VERSION);
+            request.writeInt(args.size());
+            for (var arg : args) {
+                DaemonProtocol.writeString(request, arg);
+            }
+            request.writeInt(env.size());
+            for (var e : env.entrySet()) {
+                DaemonProtocol.writeString(request, e.getKey());
+                DaemonProtocol.writeString(request, e.getValue());
+            }
+            request.flush();
+
+            var response = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            var buffer = new byte[8192];
+            while (true) {
+                var type = response.readByte();
+                int length = response.readInt();
+                if (type == DaemonProtocol.EXIT) {
+                    return response.readInt();
+                }
+                var target = type == DaemonProtocol.STDERR ? err : out;
+                while (length > 0) {
+                    int n = Math.min(length, buffer.length);
+                    response.readFully(buffer, 0, n);
+                    target.write(buffer, 0, n);
+                    length -= n;
+                }
+                if (response.available() == 0) target.flush();
+            }
+        } finally {
+            out.flush();
+            err.flush();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format between {@link DaemonClient} and {@link DaemonServer}. All numbers are big endian and strings are
+ * UTF-8 prefixed by their length.
+ * <p>
+ * The client sends the magic, the arguments and the environment. The server answers with frames of a type byte, the
+ * payload length and the payload. Output frames are sent in the order they were written, and the exit frame with the
+ * exit code ends the response.
+ */
+final class DaemonProtocol {
+    // "JCPD" and version 1
+    static final int MAGIC = 0x4A435044;
+    static final int VERSION = 1;
+
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte EXIT = 3;
+
+    private static final int MAX_STRING = 1 << 20;
+    private static final int MAX_COUNT = 1 << 16;
+
+    private DaemonProtocol() {
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING) throw new IOException("Invalid string length " + length);
+        var bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > MAX_COUNT) throw new IOException("Invalid count " + count);
+        return count;
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.daemon;
+
+import de.mickare.jcp.CommandPipeline;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Keeps pipelines built and warm in a long-lived JVM and executes invocations that {@link DaemonClient}s send over a
+ * Unix domain socket. The output that a command writes to the streams of its {@link Request} and the exit code are
+ * streamed back to the client.
+ * <p>
+ * Each connection is served on its own virtual thread if the runtime supports them, otherwise on a cached thread
+ * pool. Commands must write to the streams of the request instead of {@link System#out}, which is shared by all
+ * invocations.
+ */
+public final class DaemonServer implements Closeable {
+
+    private static final int S_IFMT = 0170000;
+    private static final int S_IFSOCK = 0140000;
+
+    /**
+     * Executes one invocation and returns its exit code.
+     */
+    @FunctionalInterface
+    public interface Handler {
+        int handle(@NonNull Request request) throws Exception;
+    }
+
+    /**
+     * An invocation of a client.
+     */
+    @Getter
+    public static final class Request {
+        private final @NonNull List<String> args;
+        private final @NonNull Map<String, String> env;
+        private final @NonNull PrintStream out;
+        private final @NonNull PrintStream err;
+
+        private Request(@NonNull List<String> args, @NonNull Map<String, String> env, @NonNull PrintStream out,
+                        @NonNull PrintStream err) {
+            this.args = args;
+            this.env = env;
+            this.out = out;
+            this.err = err;
+        }
+    }
+
+    @Getter
+    private final @NonNull Path socket;
+    private final @NonNull Handler handler;
+    private final @NonNull ServerSocketChannel channel;
+    private final @NonNull ExecutorService executor;
+    private final @NonNull Thread acceptor;
+
+    private DaemonServer(@NonNull Path socket, @NonNull Handler handler) throws IOException {
+        this.socket = socket;
+        this.handler = handler;
+        removeStaleSocket(socket);
+        this.channel = bind(socket);
+        this.executor = newExecutor();
+        this.acceptor = new Thread(this::accept, "jcp-daemon " + socket.getFileName());
+        this.acceptor.setDaemon(true);
+    }
+
+    /**
+     * Starts a daemon that listens on the socket file. The socket file is only accessible by the owner, and should
+     * still be placed in a directory that only the owner can access, since every client can run commands with the
+     * environment it chooses.
+     * <p>
+     * A socket that is left over from a daemon that was not closed is replaced. The start fails if anything else
+     * exists at the path or if another daemon still accepts connections on it.
+     */
+    public static @NonNull DaemonServer start(@NonNull Path socket, @NonNull Handler handler) throws IOException {
+        var server = new DaemonServer(socket, handler);
+        server.acceptor.start();
+        return server;
+    }
+
+    /**
+     * Returns a handler that executes the pipeline with the arguments of the request. Invalid arguments are
+     * reported on stderr with the exit code 1.
+     *
+     * @param data     creates the data of an invocation, which should give the commands access to the streams
+     * @param exitCode maps the result of the pipeline to the exit code
+     */
+    public static <V, R> @NonNull Handler pipelineHandler(@NonNull CommandPipeline<?, V, R> pipeline,
+                                                          @NonNull Function<Request, V> data,
+                                                          @NonNull ToIntFunction<? super R> exitCode) {
+        return request -> {
+            try {
+                var args = request.getArgs().toArray(String[]::new);
+                return exitCode.applyAsInt(pipeline.execute(data.apply(request), args));
+            } catch (IllegalArgumentException e) {
+                request.getErr().println(e.getMessage());
+                return 1;
+            }
+        };
+    }
+
+    /**
+     * Deletes the socket at the path if no daemon accepts connections on it anymore, since it blocks the bind.
+     */
+    private static void removeStaleSocket(Path socket) throws IOException {
+        if (!Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) return;
+        if (!isSocket(socket)) {
+            throw new FileAlreadyExistsException(socket.toString(), null, "Not a socket");
+        }
+        boolean live;
+        try (var probe = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+            live = true;
+        } catch (IOException e) {
+            live = false;
+        }
+        if (live) {
+            throw new FileAlreadyExistsException(socket.toString(), null, "Another daemon is listening on the socket");
+        }
+        Files.delete(socket);
+    }
+
+    private static boolean isSocket(Path socket) throws IOException {
+        if (socket.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+            int mode = (Integer) Files.getAttribute(socket, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            return (mode & S_IFMT) == S_IFSOCK;
+        }
+        return Files.readAttributes(socket, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isOther();
+    }
+
+    /**
+     * Binds a channel to the socket path. A bound socket file gets the permissions that the umask leaves, so on POSIX
+     * file systems it is bound in a private directory next to the path and only moved into place once it is
+     * restricted to the owner.
+     */
+    private static ServerSocketChannel bind(Path socket) throws IOException {
+        var channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            if (!socket.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                channel.bind(UnixDomainSocketAddress.of(socket));
+                return channel;
+            }
+            var parent = socket.toAbsolutePath().getParent();
+            var dir = Files.createTempDirectory(parent, ".jcp-",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+            var bound = dir.resolve("s");
+            try {
+                channel.bind(UnixDomainSocketAddress.of(bound));
+                Files.setPosixFilePermissions(bound, PosixFilePermissions.fromString("rw-------"));
+                Files.move(bound, socket, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(bound);
+                Files.delete(dir);
+            }
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            // Java 21
+            var method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                var thread = new Thread(runnable, "jcp-daemon-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void accept() {
+        while (channel.isOpen()) {
+            try {
+                var client = channel.accept();
+                executor.execute(() -> serve(client));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (!channel.isOpen()) return;
+            }
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try (client) {
+            var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(client)));
+            if (in.readInt() != DaemonProtocol.MAGIC || in.readInt() != DaemonProtocol.VERSION) return;
+            List<String> args = new ArrayList<>();
+            for (int i = DaemonProtocol.readCount(in); i > 0; --i) {
+                args.add(DaemonProtocol.readString(in));
+            }
+            Map<String, String> env = new LinkedHashMap<>();
+            for (int i = DaemonProtocol.readCount(in); i > 0; --i) {
+                env.put(DaemonProtocol.readString(in), DaemonProtocol.readString(in));
+            }
+
+            var frames = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(client)));
+            var out = new PrintStream(new BufferedOutputStream(new FrameOutputStream(frames, DaemonProtocol.STDOUT)),
+                    true, StandardCharsets.UTF_8);
+            var err = new PrintStream(new BufferedOutputStream(new FrameOutputStream(frames, DaemonProtocol.STDERR)),
+                    true, StandardCharsets.UTF_8);
+            int exitCode;
+            try {
+                exitCode = handler.handle(new Request(List.copyOf(args), Collections.unmodifiableMap(env), out, err));
+            } catch (Exception e) {
+                e.printStackTrace(err);
+                exitCode = 2;
+            }
+            out.flush();
+            err.flush();
+            synchronized (frames) {
+                frames.writeByte(DaemonProtocol.EXIT);
+                frames.writeInt(Integer.BYTES);
+                frames.writeInt(exitCode);
+                frames.flush();
+            }
+        } catch (IOException e) {
+            // The client went away
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+            executor.shutdown();
+        } finally {
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    /**
+     * Sends every write as one frame of the type.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream frames;
+        private final byte type;
+
+        private FrameOutputStream(DataOutputStream frames, byte type) {
+            this.frames = frames;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return;
+            synchronized (frames) {
+                frames.writeByte(type);
+                frames.writeInt(len);
+                frames.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (frames) {
+                frames.flush();
+            }
+        }
+    }
+}
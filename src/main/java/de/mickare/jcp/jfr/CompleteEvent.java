@@ -0,0 +1,42 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Recorded for every completion request of a pipeline.
+ */
+@Name(CompleteEvent.NAME)
+@Label("Command Complete")
+@Category({"JCP", "Command"})
+@StackTrace(false)
+public class CompleteEvent extends Event {
+    public static final String NAME = "de.mickare.jcp.Complete";
+
+    @Label("Path")
+    @Description("Names of the pipelines from the root")
+    public String path;
+
+    @Label("Label")
+    public String label;
+
+    @Label("Tokens")
+    @Description("Number of all tokens of the invocation")
+    public int tokens;
+
+    @Label("Results")
+    @Description("Number of completion candidates, or -1 if there are none")
+    public int results;
+
+    @Label("Exception")
+    public Class<?> exception;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Recorded for every level of a pipeline that is executed. The duration of a level that dispatches to a subcommand
+ * includes the subcommand.
+ */
+@Name(ExecuteEvent.NAME)
+@Label("Command Execute")
+@Category({"JCP", "Command"})
+@StackTrace(false)
+public class ExecuteEvent extends Event {
+    public static final String NAME = "de.mickare.jcp.Execute";
+
+    @Label("Path")
+    @Description("Names of the pipelines from the root")
+    public String path;
+
+    @Label("Label")
+    public String label;
+
+    @Label("Tokens")
+    @Description("Number of all tokens of the invocation")
+    public int tokens;
+
+    @Label("Parse Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parseDuration;
+
+    @Label("Execute Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    public long executeDuration;
+
+    @Label("Exception")
+    public Class<?> exception;
+}
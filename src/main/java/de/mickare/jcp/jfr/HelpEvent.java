@@ -0,0 +1,39 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Recorded when the help formatter formats or writes the help or usage of a pipeline.
+ */
+@Name(HelpEvent.NAME)
+@Label("Command Help")
+@Category({"JCP", "Help"})
+@StackTrace(false)
+public class HelpEvent extends Event {
+    public static final String NAME = "de.mickare.jcp.Help";
+
+    @Label("Path")
+    @Description("Names of the pipelines from the root")
+    public String path;
+
+    @Label("Kind")
+    @Description("formatHelp, formatUsage, writeHelp or writeUsage")
+    public String kind;
+
+    @Label("Length")
+    @Description("Length of the formatted text, or -1 if it was written to an output")
+    public int length;
+
+    @Label("Exception")
+    public Class<?> exception;
+}
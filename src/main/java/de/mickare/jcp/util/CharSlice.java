@@ -0,0 +1,63 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.util;
+
+import lombok.NonNull;
+
+/**
+ * A view on a region of another {@link CharSequence} that does not copy any characters until {@link #toString()}.
+ */
+public final class CharSlice implements CharSequence {
+    private final @NonNull CharSequence source;
+    private final int start;
+    private final int end;
+
+    public CharSlice(@NonNull CharSequence source, int start, int end) {
+        if (start < 0 || end < start || end > source.length()) {
+            throw new IndexOutOfBoundsException("slice [" + start + ", " + end + ") of length " + source.length());
+        }
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= end - start) throw new IndexOutOfBoundsException(index);
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public @NonNull CharSequence subSequence(int start, int end) {
+        if (start < 0 || end < start || end > this.end - this.start) {
+            throw new IndexOutOfBoundsException("slice [" + start + ", " + end + ") of length " + length());
+        }
+        return new CharSlice(source, this.start + start, this.start + end);
+    }
+
+    public boolean contentEquals(@NonNull CharSequence other) {
+        if (other.length() != length()) return false;
+        for (int i = 0; i < other.length(); ++i) {
+            if (other.charAt(i) != source.charAt(start + i)) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return source.subSequence(start, end).toString();
+    }
+}
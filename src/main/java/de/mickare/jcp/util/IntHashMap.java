@@ -11,72 +11,160 @@
 package de.mickare.jcp.util;
 
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.ObjIntConsumer;
 
+/**
+ * Map from keys to primitive int values with open addressing and linear probing. Absent keys have the value 0.
+ */
 public class IntHashMap<K> {
+    private static final int INITIAL_CAPACITY = 8;
 
-    private final Map<K, Integer> delegate = new HashMap<>();
+    private Object[] keys;
+    private int[] values;
+    private int size;
 
     public IntHashMap() {
+        this.keys = new Object[INITIAL_CAPACITY];
+        this.values = new int[INITIAL_CAPACITY];
     }
 
     public int size() {
-        return delegate.size();
+        return size;
     }
 
     public boolean isEmpty() {
-        return delegate.isEmpty();
+        return size == 0;
     }
 
-    public boolean containsKey(K key) {
-        return delegate.containsKey(key);
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
     }
 
-    public int incrementAndGet(K key) {
-        return delegate.merge(key, 1, Integer::sum);
+    // Returns the slot of the key, or the negative free slot minus one where it would be inserted
+    private int find(Object key) {
+        Objects.requireNonNull(key, "key");
+        final int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (true) {
+            var k = keys[i];
+            if (k == null) return -i - 1;
+            if (k == key || k.equals(key)) return i;
+            i = (i + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(K key) {
+        return find(key) >= 0;
     }
 
     public int get(K key) {
-        return delegate.getOrDefault(key, 0);
+        int i = find(key);
+        return i >= 0 ? values[i] : 0;
+    }
+
+    private void insert(int slot, K key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        // Keep the load factor at most 1/2
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
     }
 
-    private int unbox(@Nullable Integer value) {
-        return value != null ? value : 0;
+    public int incrementAndGet(K key) {
+        int i = find(key);
+        if (i >= 0) return ++values[i];
+        insert(-i - 1, key, 1);
+        return 1;
     }
 
     public int put(K key, int value) {
-        return unbox(delegate.put(key, value));
+        int i = find(key);
+        if (i >= 0) {
+            int old = values[i];
+            values[i] = value;
+            return old;
+        }
+        insert(-i - 1, key, value);
+        return 0;
     }
 
     public int remove(K key) {
-        return unbox(delegate.remove(key));
+        int i = find(key);
+        if (i < 0) return 0;
+        int old = values[i];
+        // Shift following entries of the probe sequence back into the gap
+        final int mask = keys.length - 1;
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            var k = keys[j];
+            if (k == null) break;
+            int home = hash(k) & mask;
+            // Move the entry unless its home slot lies cyclically in (gap, j]
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = null;
+        values[gap] = 0;
+        size--;
+        return old;
     }
 
-    public void putAll(@NotNull Map<? extends K, ? extends Integer> m) {
-        delegate.putAll(m);
+    private void resize(int capacity) {
+        var oldKeys = keys;
+        var oldValues = values;
+        keys = new Object[capacity];
+        values = new int[capacity];
+        final int mask = capacity - 1;
+        for (int n = 0; n < oldKeys.length; ++n) {
+            var k = oldKeys[n];
+            if (k == null) continue;
+            int i = hash(k) & mask;
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = k;
+            values[i] = oldValues[n];
+        }
     }
 
-    public void clear() {
-        delegate.clear();
+    public void putAll(@NotNull Map<? extends K, ? extends Integer> m) {
+        m.forEach((k, v) -> put(k, v));
     }
 
-    @NotNull
-    public Set<K> keySet() {
-        return delegate.keySet();
+    public void clear() {
+        if (size == 0) return;
+        Arrays.fill(keys, null);
+        Arrays.fill(values, 0);
+        size = 0;
     }
 
-    @NotNull
-    public Collection<Integer> values() {
-        return delegate.values();
+    public void forEach(@NotNull ObjIntConsumer<? super K> action) {
+        for (int i = 0; i < keys.length; ++i) {
+            if (keys[i] != null) {
+                //noinspection unchecked
+                action.accept((K) keys[i], values[i]);
+            }
+        }
     }
 
+    /**
+     * Returns a snapshot of the keys.
+     */
     @NotNull
-    public Set<Map.Entry<K, Integer>> entrySet() {
-        return delegate.entrySet();
+    public Set<K> keySet() {
+        Set<K> result = new HashSet<>(size * 2);
+        forEach((k, v) -> result.add(k));
+        return result;
     }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.util;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded thread-safe cache that evicts the least recently used entries.
+ * <p>
+ * The keys are spread over independently locked segments that share the maximum size as evenly as possible, so
+ * the least recently used order is only maintained per segment.
+ */
+public final class LruCache<K, V> {
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    private final Segment<K, V>[] segments;
+    private final int maximumSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LruCache(int maximumSize) {
+        this(maximumSize, DEFAULT_SEGMENTS);
+    }
+
+    public LruCache(int maximumSize, int concurrency) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("maximum size must be positive");
+        if (concurrency <= 0) throw new IllegalArgumentException("concurrency must be positive");
+        int count = Integer.highestOneBit(Math.min(concurrency, maximumSize));
+        // The first segments take the remainder, so that the capacities add up to the maximum size
+        int capacity = maximumSize / count;
+        int remainder = maximumSize % count;
+        //noinspection unchecked
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; ++i) {
+            segments[i] = new Segment<>(i < remainder ? capacity + 1 : capacity, evictions);
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    private Segment<K, V> segment(Object key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    public @Nullable V get(@NonNull K key) {
+        var segment = segment(key);
+        V value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    public void put(@NonNull K key, @NonNull V value) {
+        var segment = segment(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    public void clear() {
+        for (var segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (var segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.util;
+
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+
+/**
+ * Immutable open-addressing table from names to values that can be queried with a region of any
+ * {@link CharSequence}, so that lookups of tokens do not need to materialize a {@link String}.
+ */
+public final class NameIndex<T> {
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final int size;
+
+    public NameIndex(@NonNull Map<String, ? extends T> entries) {
+        int capacity = Integer.highestOneBit(Math.max(1, entries.size()) * 2 - 1) << 1;
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.size = entries.size();
+        for (var entry : entries.entrySet()) {
+            var key = entry.getKey();
+            int i = spread(key.hashCode()) & mask;
+            while (keys[i] != null) {
+                if (keys[i].equals(key)) throw new IllegalArgumentException("duplicate key " + key);
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = entry.getValue();
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean regionEquals(String key, CharSequence source, int start, int length) {
+        if (key.length() != length) return false;
+        if (source instanceof String) {
+            return key.regionMatches(0, (String) source, start, length);
+        }
+        for (int i = 0; i < length; ++i) {
+            if (key.charAt(i) != source.charAt(start + i)) return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public @Nullable T get(@NonNull String name) {
+        return find(name.hashCode(), name, 0, name.length());
+    }
+
+    public @Nullable T get(@NonNull CharSequence source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; ++i) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return find(hash, source, start, end - start);
+    }
+
+    private @Nullable T find(int hash, CharSequence source, int start, int length) {
+        int i = spread(hash) & mask;
+        String key;
+        while ((key = keys[i]) != null) {
+            if (regionEquals(key, source, start, length)) {
+                //noinspection unchecked
+                return (T) values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+}
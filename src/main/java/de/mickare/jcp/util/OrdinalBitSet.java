@@ -0,0 +1,111 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.util;
+
+import lombok.NonNull;
+
+/**
+ * Set of small non-negative ordinals. The first 64 ordinals are stored in a single word, so sets of up to 64
+ * ordinals need no array.
+ */
+public final class OrdinalBitSet {
+    private long first;
+    private long[] rest;
+
+    public OrdinalBitSet() {
+    }
+
+    /**
+     * Returns the set of the ordinals below 64 whose bits are set in the word.
+     */
+    public static @NonNull OrdinalBitSet of(long word) {
+        var result = new OrdinalBitSet();
+        result.first = word;
+        return result;
+    }
+
+    /**
+     * Returns the ordinals below 64 as bits of a word.
+     */
+    public long firstWord() {
+        return first;
+    }
+
+    /**
+     * Adds the ordinal and returns true if it was not contained before.
+     */
+    public boolean add(int ordinal) {
+        if (ordinal < 64) {
+            long bit = 1L << ordinal;
+            boolean added = (first & bit) == 0;
+            first |= bit;
+            return added;
+        }
+        int word = (ordinal >>> 6) - 1;
+        if (rest == null || word >= rest.length) {
+            var grown = new long[word + 1];
+            if (rest != null) System.arraycopy(rest, 0, grown, 0, rest.length);
+            rest = grown;
+        }
+        long bit = 1L << ordinal;
+        boolean added = (rest[word] & bit) == 0;
+        rest[word] |= bit;
+        return added;
+    }
+
+    public boolean contains(int ordinal) {
+        if (ordinal < 64) return (first & (1L << ordinal)) != 0;
+        int word = (ordinal >>> 6) - 1;
+        return rest != null && word < rest.length && (rest[word] & (1L << ordinal)) != 0;
+    }
+
+    public boolean isEmpty() {
+        if (first != 0) return false;
+        if (rest != null) {
+            for (long w : rest) {
+                if (w != 0) return false;
+            }
+        }
+        return true;
+    }
+
+    private long word(int index) {
+        if (index == 0) return first;
+        return rest != null && index - 1 < rest.length ? rest[index - 1] : 0L;
+    }
+
+    private int words() {
+        return rest != null ? rest.length + 1 : 1;
+    }
+
+    /**
+     * Returns true if every ordinal of the other set is contained in this set.
+     */
+    public boolean containsAll(@NonNull OrdinalBitSet other) {
+        if ((other.first & ~first) != 0) return false;
+        for (int i = 1; i < other.words(); ++i) {
+            if ((other.word(i) & ~word(i)) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the smallest ordinal that is contained in the other set but not in this set, starting at from, or -1.
+     */
+    public int nextMissing(@NonNull OrdinalBitSet other, int from) {
+        for (int i = from >>> 6; i < other.words(); ++i) {
+            long missing = other.word(i) & ~word(i);
+            if (i == from >>> 6) missing &= -1L << from;
+            if (missing != 0) return (i << 6) + Long.numberOfTrailingZeros(missing);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.util;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable sorted set of names that answers prefix queries with two binary searches. The results are views in
+ * natural order and are not copied.
+ */
+public final class PrefixIndex {
+    private static final PrefixIndex EMPTY = new PrefixIndex(new String[0]);
+
+    private final @NonNull List<String> names;
+
+    private PrefixIndex(@NonNull String[] sorted) {
+        this.names = Collections.unmodifiableList(Arrays.asList(sorted));
+    }
+
+    public static @NonNull PrefixIndex of(@NonNull Collection<String> names) {
+        if (names.isEmpty()) return EMPTY;
+        var sorted = names.stream().sorted().distinct().toArray(String[]::new);
+        return new PrefixIndex(sorted);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public @NonNull List<String> getAll() {
+        return names;
+    }
+
+    /**
+     * Returns all names that start with the prefix in natural order.
+     */
+    public @NonNull List<String> withPrefix(@NonNull String prefix) {
+        if (prefix.isEmpty()) return names;
+        // First name that is not less than the prefix
+        int low = 0;
+        int high = names.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names.get(mid).compareTo(prefix) < 0) low = mid + 1;
+            else high = mid;
+        }
+        // Names with the prefix are contiguous, so find the first name after them
+        final int start = low;
+        high = names.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (names.get(mid).startsWith(prefix)) low = mid + 1;
+            else high = mid;
+        }
+        return names.subList(start, low);
+    }
+}
@@ -11,8 +11,21 @@
 package de.mickare.jcp.util;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public final class ReflectionUtil {
@@ -31,9 +44,107 @@ public final class ReflectionUtil {
         );
     }
 
+    public static <T> Supplier<T> constructorFactory(Class<T> cls) {
+        MethodHandle constructor;
+        try {
+            constructor = MethodHandles.privateLookupIn(cls, MethodHandles.lookup())
+                    .findConstructor(cls, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (IllegalAccessException | SecurityException e) {
+            return reflectiveConstructorFactory(cls);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("Class " + cls + " has no no-arg constructor", e);
+        }
+        return () -> {
+            try {
+                return cls.cast(constructor.invokeExact());
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new RuntimeException(t);
+            }
+        };
+    }
+
+    private static <T> Supplier<T> reflectiveConstructorFactory(Class<T> cls) {
+        final Constructor<T> constructor;
+        try {
+            constructor = cls.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("Class " + cls + " has no public no-arg constructor", e);
+        }
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw new RuntimeException(e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
     public static <E extends Enum<E>> Class<E> checkIsEnum(Class<?> enumClass) {
         if (!enumClass.isEnum()) throw new RuntimeException("Class " + enumClass + " is not an Enum");
         //noinspection unchecked
         return (Class<E>) enumClass;
     }
+
+    /**
+     * Creates an instance of the annotation type with the given attribute values, like the instances returned by
+     * {@link java.lang.reflect.AnnotatedElement#getAnnotation(Class)}. Missing attributes get their default value.
+     */
+    public static <A extends Annotation> A synthesizeAnnotation(Class<A> type, Map<String, Object> values) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (var method : type.getDeclaredMethods()) {
+            var value = values.containsKey(method.getName()) ? values.get(method.getName()) : method.getDefaultValue();
+            if (value == null) {
+                throw new IllegalArgumentException("Missing value of " + type.getName() + "." + method.getName());
+            }
+            attributes.put(method.getName(), value);
+        }
+        InvocationHandler handler = (proxy, method, args) -> {
+            var name = method.getName();
+            if (method.getParameterCount() == 1 && name.equals("equals")) {
+                return annotationEquals(type, attributes, args[0]);
+            }
+            if (method.getParameterCount() == 0) {
+                var value = attributes.get(name);
+                if (value != null) return value instanceof Object[] ? ((Object[]) value).clone() : value;
+                if (name.equals("annotationType")) return type;
+                if (name.equals("hashCode")) return annotationHashCode(attributes);
+                if (name.equals("toString")) return annotationToString(type, attributes);
+            }
+            throw new UnsupportedOperationException(method.toString());
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static boolean annotationEquals(Class<?> type, Map<String, Object> attributes, Object other)
+            throws ReflectiveOperationException {
+        if (!type.isInstance(other)) return false;
+        for (Method method : type.getDeclaredMethods()) {
+            if (!Objects.deepEquals(attributes.get(method.getName()), method.invoke(other))) return false;
+        }
+        return true;
+    }
+
+    // As specified by Annotation#hashCode
+    private static int annotationHashCode(Map<String, Object> attributes) {
+        int hash = 0;
+        for (var e : attributes.entrySet()) {
+            var value = e.getValue();
+            int valueHash = value instanceof Object[] ? Arrays.hashCode((Object[]) value) : value.hashCode();
+            hash += (127 * e.getKey().hashCode()) ^ valueHash;
+        }
+        return hash;
+    }
+
+    private static String annotationToString(Class<?> type, Map<String, Object> attributes) {
+        return attributes.entrySet().stream()
+                .map(e -> e.getKey() + "=" + (e.getValue() instanceof Object[]
+                        ? Arrays.toString((Object[]) e.getValue()) : String.valueOf(e.getValue())))
+                .collect(Collectors.joining(", ", "@" + type.getName() + "(", ")"));
+    }
 }
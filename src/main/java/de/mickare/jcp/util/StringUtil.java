@@ -10,12 +10,12 @@
  */
 package de.mickare.jcp.util;
 
-
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 public final class StringUtil {
@@ -26,32 +26,25 @@ public final class StringUtil {
         return Stream.of(args).filter(Predicate.not(String::isEmpty)).findFirst();
     }
 
+    /**
+     * Wraps the text into lines of at most maxWidth characters, see {@link TextWrapper}.
+     */
     public static List<StringBuilder> splitBlocks(String text, int maxWidth, int minWordLength) {
-        assert 1 < minWordLength;
-        assert minWordLength < maxWidth;
+        var out = new StringBuilder();
+        try {
+            TextWrapper.wrap(out, text, maxWidth, minWordLength, 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
         List<StringBuilder> lines = new ArrayList<>();
-        Supplier<StringBuilder> newBuilder = () -> {
-            var sb = new StringBuilder();
-            lines.add(sb);
-            return sb;
-        };
-        StringBuilder current = newBuilder.get();
-
-        for (var word : text.split("\\s")) {
-            int c = 0;
-            do {
-                int space = maxWidth - current.length() - 1;
-                var chunk = word.substring(c, Math.min(word.length(), Math.max(space, minWordLength)));
-                if (chunk.length() <= space) {
-                    if (c == 0 && current.length() != 0) current.append(" ");
-                    current.append(chunk);
-                } else {
-                    if (c != 0) current.append('-');
-                    current = newBuilder.get().append(chunk);
-                }
-                c += chunk.length();
-            } while (c < word.length());
+        var separator = System.lineSeparator();
+        int start = 0;
+        int end;
+        while ((end = out.indexOf(separator, start)) >= 0) {
+            lines.add(new StringBuilder(out.subSequence(start, end)));
+            start = end + separator.length();
         }
+        lines.add(new StringBuilder(out.subSequence(start, out.length())));
         return lines;
     }
 
@@ -60,28 +53,36 @@ public final class StringUtil {
         return out;
     }
 
+    public static <A extends Appendable> A appendPadding(A out, int left, int length, char padChar) throws IOException {
+        for (int i = left; i < length; ++i) out.append(padChar);
+        return out;
+    }
+
     public static StringBuilder appendIndent(StringBuilder out, String header, String text, int indent, int maxWidth, int spacing) {
+        try {
+            appendIndent((Appendable) out, header, text, indent, maxWidth, spacing);
+            return out;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static <A extends Appendable> A appendIndent(A out, String header, String text, int indent, int maxWidth,
+                                                        int spacing) throws IOException {
         assert indent < maxWidth;
         assert spacing < indent;
         if (text.isEmpty()) {
             out.append(header, 0, Math.min(header.length(), maxWidth));
             return out;
         }
-        var padding = " ".repeat(indent);
         if (header.length() <= indent - spacing) {
             out.append(header);
             appendPadding(out, header.length(), indent, ' ');
         } else {
-            out.append(header, 0, Math.min(header.length(), maxWidth))
-                    .append(System.lineSeparator()).append(padding);
+            out.append(header, 0, Math.min(header.length(), maxWidth)).append(System.lineSeparator());
+            TextWrapper.appendSpaces(out, indent);
         }
-
-        var blocks = splitBlocks(text, maxWidth - indent, 3);
-        for (int i = 0; i < blocks.size(); ++i) {
-            if (i != 0) out.append(padding);
-            out.append(blocks.get(i));
-        }
-
+        TextWrapper.wrap(out, text, maxWidth - indent, 3, indent);
         return out;
     }
 }
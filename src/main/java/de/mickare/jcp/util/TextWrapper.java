@@ -0,0 +1,183 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp.util;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+
+/**
+ * Greedy word wrapping that scans the text once and writes it directly into an {@link Appendable}.
+ * <p>
+ * Words are separated by each single whitespace character, so runs of whitespace are kept as long as they fit on
+ * the line and trailing whitespace is dropped. A word is placed on the current line if it fits together with a
+ * separating space. Otherwise a chunk of the word that ends max(space left, minWordLength) columns after the start of
+ * the word is placed on the current line if it fits, or on the next line, and the rest of the word continues likewise
+ * with hyphens at the splits. A hyphen may exceed the width by one column.
+ */
+public final class TextWrapper {
+    private static final String SPACES = " ".repeat(64);
+
+    /**
+     * How the width of text is measured.
+     */
+    public enum Measure {
+        /**
+         * Every code point is one column wide.
+         */
+        CODE_POINTS,
+        /**
+         * Display columns of a terminal: combining and format characters are zero and East Asian wide characters
+         * are two columns wide.
+         */
+        COLUMNS
+    }
+
+    private TextWrapper() {
+    }
+
+    private static boolean isSeparator(char c) {
+        // Same characters as the regex \s
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    public static <A extends Appendable> A appendSpaces(A out, int count) throws IOException {
+        while (count > 0) {
+            int n = Math.min(count, SPACES.length());
+            out.append(SPACES, 0, n);
+            count -= n;
+        }
+        return out;
+    }
+
+    public static int width(int codePoint, @NonNull Measure measure) {
+        if (measure == Measure.CODE_POINTS) return 1;
+        switch (Character.getType(codePoint)) {
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.FORMAT:
+                return 0;
+            default:
+                return isWide(codePoint) ? 2 : 1;
+        }
+    }
+
+    private static boolean isWide(int cp) {
+        return (cp >= 0x1100 && cp <= 0x115F)
+                || (cp >= 0x2E80 && cp <= 0x303E)
+                || (cp >= 0x3041 && cp <= 0x33FF)
+                || (cp >= 0x3400 && cp <= 0x4DBF)
+                || (cp >= 0x4E00 && cp <= 0x9FFF)
+                || (cp >= 0xA000 && cp <= 0xA4CF)
+                || (cp >= 0xAC00 && cp <= 0xD7A3)
+                || (cp >= 0xF900 && cp <= 0xFAFF)
+                || (cp >= 0xFE30 && cp <= 0xFE4F)
+                || (cp >= 0xFF00 && cp <= 0xFF60)
+                || (cp >= 0xFFE0 && cp <= 0xFFE6)
+                || (cp >= 0x1F300 && cp <= 0x1F64F)
+                || (cp >= 0x1F900 && cp <= 0x1F9FF)
+                || (cp >= 0x20000 && cp <= 0x3FFFD);
+    }
+
+    public static int width(@NonNull CharSequence text, int start, int end, @NonNull Measure measure) {
+        if (measure == Measure.CODE_POINTS) return Character.codePointCount(text, start, end);
+        int width = 0;
+        for (int i = start; i < end; ) {
+            int cp = Character.codePointAt(text, i);
+            width += width(cp, measure);
+            i += Character.charCount(cp);
+        }
+        return width;
+    }
+
+    // Returns the end index of the longest prefix of [start, end) that is at most maxWidth wide, but at least one code
+    // point.
+    private static int fit(CharSequence text, int start, int end, int maxWidth, Measure measure) {
+        int width = 0;
+        int i = start;
+        while (i < end) {
+            int cp = Character.codePointAt(text, i);
+            int w = width(cp, measure);
+            if (width + w > maxWidth && i > start) break;
+            width += w;
+            i += Character.charCount(cp);
+        }
+        return i;
+    }
+
+    public static <A extends Appendable> A wrap(A out, @NonNull CharSequence text, int maxWidth, int minWordLength,
+                                                int indent) throws IOException {
+        return wrap(out, text, maxWidth, minWordLength, indent, Measure.CODE_POINTS);
+    }
+
+    /**
+     * Wraps the text into lines of at most maxWidth columns. Each line after the first starts with a line separator
+     * followed by the indent.
+     *
+     * @param minWordLength the width that a chunk of a split word may take even if less space is left on the line
+     * @return the output
+     */
+    public static <A extends Appendable> A wrap(A out, @NonNull CharSequence text, int maxWidth, int minWordLength,
+                                                int indent, @NonNull Measure measure) throws IOException {
+        assert 1 < minWordLength;
+        assert minWordLength < maxWidth;
+        final int length = text.length();
+        // Drop trailing whitespace
+        int last = length;
+        while (last > 0 && isSeparator(text.charAt(last - 1))) last--;
+
+        int used = 0;
+        int start = 0;
+        while (start <= last) {
+            int end = start;
+            while (end < last && !isSeparator(text.charAt(end))) end++;
+            used = appendWord(out, text, start, end, used, maxWidth, minWordLength, indent, measure);
+            start = end + 1;
+        }
+        return out;
+    }
+
+    private static int appendWord(Appendable out, CharSequence text, int start, int end, int used, int maxWidth,
+                                  int minWordLength, int indent, Measure measure) throws IOException {
+        int chunk = start;
+        do {
+            int space = maxWidth - used - 1;
+            int limit = Math.max(space, minWordLength);
+            // The chunk ends at the limit counted from the start of the word. If that is not after the start of the
+            // chunk and the chunk would not start a new line, the limit is counted from the start of the chunk.
+            int split = fit(text, start, end, limit, measure);
+            if (split < chunk || (split == chunk && space >= 0)) {
+                split = fit(text, chunk, end, limit, measure);
+            }
+            int width = width(text, chunk, split, measure);
+            if (width <= space) {
+                if (chunk == start && used != 0) {
+                    out.append(' ');
+                    used++;
+                }
+                out.append(text, chunk, split);
+                used += width;
+            } else {
+                if (chunk != start) out.append('-');
+                newLine(out, indent);
+                out.append(text, chunk, split);
+                used = width;
+            }
+            chunk = split;
+        } while (chunk < end);
+        return used;
+    }
+
+    private static void newLine(Appendable out, int indent) throws IOException {
+        out.append(System.lineSeparator());
+        appendSpaces(out, indent);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArgsTokenizerTest {
+
+    @Test
+    void testParse() {
+        var args = ArgsTokenizer.parse("  plain 'single quoted' \"double \\\"quoted\\\"\" mi'x'\"ed\" esc\\ aped '' \"a\\b\"  ");
+        assertArrayEquals(new String[]{
+                "plain", "single quoted", "double \"quoted\"", "mixed", "esc aped", "", "a\\b"
+        }, args.getAllArgs());
+    }
+
+    @Test
+    void testUnterminated() {
+        assertThrows(IllegalArgumentException.class, () -> ArgsTokenizer.parse("a 'b"));
+        assertThrows(IllegalArgumentException.class, () -> ArgsTokenizer.parse("a \"b\\\""));
+    }
+
+    @Test
+    void testSemantics() {
+        var args = ArgsTokenizer.parse("-v 'x y' z");
+        assertEquals(3, args.total());
+        assertTrue(args.peekStartsWith('-'));
+        assertEquals("-v", args.peekSequence().toString());
+        assertEquals("-v", args.next());
+        assertEquals("x y", args.nextSequence().toString());
+        assertEquals(1, args.remaining());
+        assertEquals("z", args.last());
+        assertEquals(2, args.getIndex());
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import de.mickare.jcp.util.PrefixIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class CompleteCommandTest {
+
+    @Test
+    void testOptionValue() throws Exception {
+        var pipeline = CommandPipeline.builder(TestCommand.class, "test")
+                .build();
+
+        var result = pipeline.complete(new Object(), "test", new ArgsTokenizer(new String[]{"-d", "s"}));
+        assertEquals(List.of("second"), result);
+    }
+
+    @Test
+    void testBuilderWithoutCompleters() throws Exception {
+        var pipeline = new CommandPipeline.Builder<TestCommand, Object, CommandContext<Object>>(TestCommand.class, "test",
+                new CommandPipeline.ParserTable()).build();
+
+        var result = pipeline.complete(new Object(), "test", new ArgsTokenizer(new String[]{"-d", "s"}));
+        assertEquals(List.of("second"), result);
+    }
+
+    @Test
+    void testSharedCompleters() {
+        var pipeline = CommandPipeline.builder(TestCommand.class, "test")
+                .build();
+
+        var day = pipeline.getOption("-d");
+        var other = pipeline.getOption("-o");
+        assertSame(day.getCompleter(), other.getCompleter());
+        assertSame(day.getCompleter(), pipeline.getPositional().get(0).getCompleter());
+    }
+
+    @Test
+    void testPrefixes() throws Exception {
+        var builder = CommandPipeline.builder(TestRootCommand.class, "test");
+        builder.addSubCommand(TestCommand.class, "beta");
+        builder.addSubCommand(SubCommandsTest.CommandSubA.class, "alps");
+        builder.addSubCommand(SubCommandsTest.CommandSubB.class, "alpha");
+        var pipeline = builder.build();
+
+        assertEquals(List.of("--alpha", "--alps"),
+                pipeline.complete(new Object(), "test", new ArgsTokenizer(new String[]{"--al"})));
+        assertEquals(List.of("alpha", "alps"),
+                pipeline.complete(new Object(), "test", new ArgsTokenizer(new String[]{"al"})));
+        assertEquals(List.of("first", "second"),
+                pipeline.complete(new Object(), "test", new ArgsTokenizer(new String[]{"beta", "-d", ""})));
+    }
+
+    @Test
+    void testPrefixIndex() {
+        var index = PrefixIndex.of(List.of("b", "ab", "abc", "a", "abd", "ac", "ab"));
+        assertEquals(List.of("a", "ab", "abc", "abd", "ac", "b"), index.getAll());
+        assertEquals(List.of("ab", "abc", "abd"), index.withPrefix("ab"));
+        assertEquals(List.of("abc"), index.withPrefix("abc"));
+        assertEquals(List.of(), index.withPrefix("abe"));
+        assertEquals(List.of(), index.withPrefix("c"));
+    }
+
+    public enum MyEnum {
+        FIRST,
+        SECOND
+    }
+
+    public static class TestRootCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Option(names = {"-a", "--alpha"}, store_true = true)
+        private boolean alpha;
+        @Option(names = {"--alps"}, store_true = true)
+        private boolean alps;
+        @Option(names = {"-b", "--beta"}, store_true = true)
+        private boolean beta;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    public static class TestCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Option(names = {"-d"})
+        private MyEnum day;
+        @Option(names = {"-o"})
+        private MyEnum other;
+        @Argument(name = "rest", nargs = -1)
+        private List<MyEnum> rest;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+}
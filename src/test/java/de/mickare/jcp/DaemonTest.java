@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import de.mickare.jcp.daemon.DaemonClient;
+import de.mickare.jcp.daemon.DaemonServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DaemonTest {
+
+    @Test
+    void testDaemon() throws Exception {
+        var pipeline = CommandPipeline.builder(TestCommand.class, "test").build();
+        var dir = Files.createTempDirectory("jcp-daemon");
+        var socket = dir.resolve("test.sock");
+        try (var server = DaemonServer.start(socket, DaemonServer.pipelineHandler(pipeline, Session::new, code -> code))) {
+            assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(socket));
+            try (var files = Files.list(dir)) {
+                assertEquals(List.of(socket), files.toList());
+            }
+            var out = new ByteArrayOutputStream();
+            var err = new ByteArrayOutputStream();
+            int exitCode = DaemonClient.run(socket, List.of("-n", "world", "3"), Map.of("GREETING", "hello"), out, err);
+            assertEquals(3, exitCode);
+            assertEquals("hello world\n", out.toString(StandardCharsets.UTF_8));
+            assertEquals("done\n", err.toString(StandardCharsets.UTF_8));
+
+            out.reset();
+            err.reset();
+            exitCode = DaemonClient.run(socket, List.of("-x"), Map.of(), out, err);
+            assertEquals(1, exitCode);
+            assertEquals("", out.toString(StandardCharsets.UTF_8));
+            assertTrue(err.toString(StandardCharsets.UTF_8).contains("-x"));
+        } finally {
+            Files.deleteIfExists(socket);
+            Files.delete(dir);
+        }
+        assertFalse(Files.exists(socket));
+    }
+
+    @Test
+    void testExistingSocket() throws Exception {
+        DaemonServer.Handler handler = request -> 0;
+        var dir = Files.createTempDirectory("jcp-daemon");
+        var socket = dir.resolve("test.sock");
+        try {
+            // Other files are never replaced
+            Files.writeString(socket, "data");
+            assertThrows(FileAlreadyExistsException.class, () -> DaemonServer.start(socket, handler));
+            assertEquals("data", Files.readString(socket));
+            Files.delete(socket);
+
+            // A socket that no daemon listens on anymore is replaced
+            try (var stale = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+                stale.bind(UnixDomainSocketAddress.of(socket));
+            }
+            assertTrue(Files.exists(socket));
+            try (var server = DaemonServer.start(socket, handler)) {
+                // The socket of a running daemon is not taken over
+                assertThrows(FileAlreadyExistsException.class, () -> DaemonServer.start(socket, handler));
+                var out = new ByteArrayOutputStream();
+                assertEquals(0, DaemonClient.run(socket, List.of(), Map.of(), out, out));
+            }
+        } finally {
+            Files.deleteIfExists(socket);
+            Files.delete(dir);
+        }
+    }
+
+    public static class Session {
+        private final Map<String, String> env;
+        private final PrintStream out;
+        private final PrintStream err;
+
+        public Session(DaemonServer.Request request) {
+            this.env = request.getEnv();
+            this.out = request.getOut();
+            this.err = request.getErr();
+        }
+    }
+
+    public static class TestCommand extends AbstractCommand<Session, Integer> {
+        @Option(names = "-n")
+        private String name;
+        @Argument(name = "code")
+        private int code;
+
+        @Override
+        public Integer execute(CommandContext<Session> context) throws Exception {
+            var session = context.getData();
+            session.out.print(session.env.get("GREETING") + " ");
+            session.out.println(name);
+            session.err.println("done");
+            return code;
+        }
+    }
+}
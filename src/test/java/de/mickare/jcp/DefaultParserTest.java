@@ -0,0 +1,249 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DefaultParserTest {
+
+    @Test
+    void testPrimitiveParsers() throws Exception {
+        var pipeline = CommandPipeline.builder(TestCommand.class, "test")
+                .build();
+
+        var context = pipeline.execute(new Object(), new String[]{
+                "-b", "-12", "-s", "1234", "-i", "42", "-l", "9000000000", "-d", "0.5", "-c", "x", "-n", "7"
+        });
+        var trace = context.getTraceIfPresent(TestCommand.class);
+        assertNotNull(trace);
+        var command = trace.getCommand();
+        assertEquals(-12, command.b);
+        assertEquals(1234, command.s);
+        assertEquals(42, command.i);
+        assertEquals(9000000000L, command.l);
+        assertEquals(0.5, command.d);
+        assertEquals('x', command.c);
+        assertEquals(Integer.valueOf(7), command.n);
+    }
+
+    @Test
+    void testParseCharSequence() throws Exception {
+        var pipeline = CommandPipeline.builder(TestCommand.class, "test")
+                .build();
+        var param = pipeline.getOption("-i");
+        var parser = new DefaultParser.IntParser();
+        assertEquals(123, parser.parseInt(param, null, new StringBuilder("123")));
+        assertThrows(NumberFormatException.class, () -> new DefaultParser.ByteParser().parseByte(param, null, "128"));
+    }
+
+    @Test
+    void testParserTable() throws Exception {
+        var builder = CommandPipeline.builder(TestShapeCommand.class, "test");
+        builder.getParser().register(Shape.class, new ShapeParser());
+        var pipeline = builder.build();
+
+        var table = pipeline.getParserTable();
+        assertTrue(table.isFrozen());
+        assertFalse(builder.getParser().isFrozen());
+        assertThrows(IllegalStateException.class, () -> table.register(Shape.class, new ShapeParser()));
+
+        var context = pipeline.execute(new Object(), new String[]{"-c", "round", "-m", "second"});
+        var trace = context.getTraceIfPresent(TestShapeCommand.class);
+        assertNotNull(trace);
+        assertEquals("round", trace.getCommand().circle.getName());
+        assertEquals(MyEnum.SECOND, trace.getCommand().mode);
+        assertSame(table.get(MyEnum.class), table.get(MyEnum.class));
+
+        // Lists are created as ArrayList, so other list types have no parser
+        assertSame(table.get(List.class), table.get(ArrayList.class));
+        assertNull(table.getIfPresent(LinkedList.class));
+        var ex = assertThrows(RuntimeException.class,
+                () -> CommandPipeline.builder(TestLinkedListCommand.class, "test").build());
+        assertTrue(ex.getMessage().contains("No value parser"));
+    }
+
+    @Test
+    void testMutableValuesAreNotCached() throws Exception {
+        var builder = CommandPipeline.builder(TestShapeCommand.class, "test").parseCache(4);
+        builder.getParser().register(Shape.class, new ShapeParser());
+        var pipeline = builder.build();
+        var cache = pipeline.getParseCache();
+        assertNotNull(cache);
+
+        String[] args = {"-c", "round"};
+        var first = pipeline.execute(new Object(), args).getTraceIfPresent(TestShapeCommand.class).getCommand();
+        var second = pipeline.execute(new Object(), args).getTraceIfPresent(TestShapeCommand.class).getCommand();
+        assertNotSame(first.circle, second.circle);
+        assertEquals("round", second.circle.getName());
+        assertEquals(0, cache.size());
+
+        pipeline.execute(new Object(), new String[]{"-m", "second"});
+        pipeline.execute(new Object(), new String[]{"-m", "second"});
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void testParsedInvocationWithMutableValues() throws Exception {
+        var builder = CommandPipeline.builder(TestShapeCommand.class, "test");
+        builder.getParser().register(Shape.class, new ShapeParser());
+        var pipeline = builder.build();
+
+        var invocation = pipeline.parse(new String[]{"-c", "round"});
+        var context = invocation.execute(new Object());
+        assertSame(invocation.getCommand(), context.getTraceIfPresent(TestShapeCommand.class).getCommand());
+        assertThrows(IllegalStateException.class, () -> invocation.execute(new Object()));
+    }
+
+    @Test
+    void testBoundParsers() {
+        var pipeline = CommandPipeline.builder(TestListCommand.class, "test").build();
+        var param = pipeline.getPositional().get(0);
+        assertTrue(param.getParser() instanceof DefaultParser.ListParser);
+        assertTrue(param.getElementParser() instanceof DefaultParser.IntParser);
+
+        assertThrows(RuntimeException.class, () -> CommandPipeline.builder(TestRawListCommand.class, "test").build());
+        assertThrows(RuntimeException.class, () -> CommandPipeline.builder(TestShapeCommand.class, "test").build());
+
+        var ex = assertThrows(RuntimeException.class,
+                () -> CommandPipeline.builder(TestNestedListCommand.class, "test").build());
+        assertTrue(ex.getMessage().contains("needs a concrete element type"));
+        ex = assertThrows(RuntimeException.class,
+                () -> CommandPipeline.builder(TestRawNestedListCommand.class, "test").build());
+        assertTrue(ex.getMessage().contains("Nested list"));
+    }
+
+    public static class TestCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Option(names = "-b")
+        private byte b;
+        @Option(names = "-s")
+        private short s;
+        @Option(names = "-i")
+        private int i;
+        @Option(names = "-l")
+        private long l;
+        @Option(names = "-d")
+        private double d;
+        @Option(names = "-c")
+        private char c;
+        @Option(names = "-n")
+        private Integer n;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    public enum MyEnum {
+        FIRST,
+        SECOND
+    }
+
+    public interface Shape {
+        String getName();
+    }
+
+    public static class Circle implements Shape {
+        private final String name;
+
+        public Circle(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+    public static class ShapeParser extends AbstractParser<Shape> {
+        @Override
+        public Shape parse(CommandPipeline.Parameter<?> param, Object obj, String arg) throws Exception {
+            return new Circle(arg);
+        }
+
+        @Override
+        public String getHelp(CommandPipeline.Parameter<?> param) {
+            return "shape";
+        }
+    }
+
+    public static class TestNestedListCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Argument(name = "values", nargs = -1)
+        private List<List<String>> values;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    public static class TestRawNestedListCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @SuppressWarnings("rawtypes")
+        @Argument(name = "values", nargs = -1)
+        private List<ArrayList> values;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    public static class TestLinkedListCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Argument(name = "values", nargs = -1)
+        private LinkedList<String> values;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    public static class TestShapeCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Option(names = "-c")
+        private Circle circle;
+        @Option(names = "-m")
+        private MyEnum mode;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    public static class TestListCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Argument(name = "values", nargs = -1)
+        private List<Integer> values;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    public static class TestRawListCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @SuppressWarnings("rawtypes")
+        @Argument(name = "values", nargs = -1)
+        private List values;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+}
@@ -37,6 +37,18 @@ public class EnumCommandTest {
 
     }
 
+    @Test
+    void testEnumsFromLine() throws Exception {
+        var pipeline = CommandPipeline.builder(TestCommand.class, "test")
+                .build();
+
+        var context = pipeline.execute(new Object(), ArgsTokenizer.parse("-v first 'second' \"third\""));
+        var trace = context.getTraceIfPresent(TestCommand.class);
+        assertNotNull(trace);
+        assertEquals(MyEnum.FIRST, trace.getCommand().value);
+        assertEquals(List.of(MyEnum.SECOND, MyEnum.THIRD), trace.getCommand().rest);
+    }
+
     public enum MyEnum {
         FIRST,
         SECOND,
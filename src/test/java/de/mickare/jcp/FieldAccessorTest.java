@@ -0,0 +1,65 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class FieldAccessorTest {
+
+    @Test
+    void testAccessors() throws Exception {
+        var command = new TestCommand();
+
+        var primitive = FieldAccessor.of(TestCommand.class.getDeclaredField("primitive"));
+        primitive.setInt(command, 42);
+        assertEquals(42, command.primitive);
+        assertEquals(42, primitive.get(command));
+
+        var boxed = FieldAccessor.of(TestCommand.class.getDeclaredField("boxed"));
+        boxed.setLong(command, 7L);
+        assertEquals(Long.valueOf(7L), command.boxed);
+
+        var fixed = FieldAccessor.of(TestCommand.class.getDeclaredField("fixed"));
+        fixed.set(command, "changed");
+        assertEquals("changed", fixed.get(command));
+    }
+
+    @Test
+    void testBoxedOptions() throws Exception {
+        var pipeline = CommandPipeline.builder(TestCommand.class, "test")
+                .build();
+
+        var context = pipeline.execute(new Object(), new String[]{"-p", "1", "-b", "2", "-f", "three"});
+        var trace = context.getTraceIfPresent(TestCommand.class);
+        assertNotNull(trace);
+        var command = trace.getCommand();
+        assertEquals(1, command.primitive);
+        assertEquals(Long.valueOf(2L), command.boxed);
+        assertEquals("three", command.fixed);
+    }
+
+    public static class TestCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Option(names = "-p")
+        private int primitive = 0;
+        @Option(names = "-b")
+        private Long boxed = null;
+        @Option(names = "-f")
+        private final String fixed = new String("default");
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+}
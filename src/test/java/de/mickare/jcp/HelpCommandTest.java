@@ -10,16 +10,18 @@
  */
 package de.mickare.jcp;
 
+import de.mickare.jcp.util.StringUtil;
+import de.mickare.jcp.util.TextWrapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class HelpCommandTest {
 
@@ -66,6 +68,131 @@ public class HelpCommandTest {
         assertEquals("", outContent.toString());
     }
 
+    @Test
+    void testMemoizedHelp() throws Exception {
+        var pipeline = CommandPipeline.builder(TestCommand.class, "test")
+                .build();
+        var formatter = new DefaultHelpFormatter();
+
+        var help = formatter.formatHelp(pipeline);
+        assertSame(help, formatter.formatHelp(pipeline));
+        assertSame(help, DefaultHelpFormatter.INSTANCE.formatHelp(pipeline));
+        assertEquals("Usage: test [options] N", formatter.formatUsage(pipeline));
+
+        var out = new StringBuilder();
+        formatter.writeHelp(pipeline, out);
+        assertEquals(help, out.toString());
+
+        formatter.setIndent(4);
+        assertNotEquals(help, formatter.formatHelp(pipeline));
+    }
+
+    @Test
+    void testCustomFormatter() {
+        var pipeline = CommandPipeline.builder(TestCommand.class, "test")
+                .build();
+        var first = new PrefixFormatter("first");
+        var second = new PrefixFormatter("second");
+
+        assertTrue(first.formatHelp(pipeline).startsWith("first: test" + System.lineSeparator()));
+        assertTrue(second.formatHelp(pipeline).startsWith("second: test" + System.lineSeparator()));
+        assertEquals("Usage: test [options] N", DefaultHelpFormatter.INSTANCE.formatUsage(pipeline));
+    }
+
+    private static class PrefixFormatter extends DefaultHelpFormatter {
+        private final String prefix;
+
+        PrefixFormatter(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public String formatUsage(CommandPipeline<?, ?, ?> pipeline) {
+            return prefix + ": " + pipeline.getName();
+        }
+    }
+
+    @Test
+    void testWrap() throws Exception {
+        var nl = System.lineSeparator();
+        assertEquals("aaa bbb" + nl + "ccc", TextWrapper.wrap(new StringBuilder(), "aaa bbb ccc ", 8, 3, 0).toString());
+        assertEquals("abcd-" + nl + "  efg-" + nl + "  hij",
+                TextWrapper.wrap(new StringBuilder(), "abcdefghij", 5, 3, 2).toString());
+        assertEquals("a abcde-" + nl + "fg",
+                TextWrapper.wrap(new StringBuilder(), "a abcdefg", 7, 3, 0).toString());
+        // A word is split once enough columns are left on the line
+        assertEquals(List.of("ca abcac-", "a b"),
+                StringUtil.splitBlocks("ca abcaca b", 8, 5).stream().map(StringBuilder::toString).toList());
+        assertEquals("-x  one two" + nl + "    three",
+                StringUtil.appendIndent(new StringBuilder(), "-x", "one two three", 4, 12, 2).toString());
+        assertEquals(List.of("aaa bbb", "ccc"),
+                StringUtil.splitBlocks("aaa bbb ccc", 8, 3).stream().map(StringBuilder::toString).toList());
+
+        assertEquals(2, TextWrapper.width("日本", 0, 2, TextWrapper.Measure.CODE_POINTS));
+        assertEquals(4, TextWrapper.width("日本", 0, 2, TextWrapper.Measure.COLUMNS));
+        assertEquals("日本" + nl + "語", TextWrapper.wrap(new StringBuilder(), "日本 語", 5, 2, 0,
+                TextWrapper.Measure.COLUMNS).toString());
+    }
+
+    @Test
+    void testWrapLikeFormerSplitBlocks() {
+        // Every text of up to 8 characters, wherever the former implementation did not fail
+        char[] alphabet = {'a', 'b', ' '};
+        int compared = 0;
+        for (int length = 0; length <= 8; ++length) {
+            var chars = new char[length];
+            int count = (int) Math.pow(alphabet.length, length);
+            for (int n = 0; n < count; ++n) {
+                for (int i = 0, k = n; i < length; ++i, k /= alphabet.length) {
+                    chars[i] = alphabet[k % alphabet.length];
+                }
+                var text = new String(chars);
+                for (int maxWidth = 3; maxWidth <= 9; ++maxWidth) {
+                    for (int minWordLength = 2; minWordLength < maxWidth; ++minWordLength) {
+                        var expected = formerSplitBlocks(text, maxWidth, minWordLength);
+                        if (expected == null) continue;
+                        var actual = StringUtil.splitBlocks(text, maxWidth, minWordLength).stream()
+                                .map(StringBuilder::toString).toList();
+                        assertEquals(expected, actual, "'" + text + "' " + maxWidth + " " + minWordLength);
+                        compared++;
+                    }
+                }
+            }
+        }
+        assertTrue(compared > 100_000);
+    }
+
+    /**
+     * The implementation of {@link StringUtil#splitBlocks} before {@link TextWrapper}, which returns null where it
+     * threw or did not terminate.
+     */
+    private static List<String> formerSplitBlocks(String text, int maxWidth, int minWordLength) {
+        List<StringBuilder> lines = new ArrayList<>();
+        var current = new StringBuilder();
+        lines.add(current);
+        for (var word : text.split("\\s")) {
+            int c = 0;
+            int steps = 0;
+            do {
+                if (++steps > 100) return null;
+                int space = maxWidth - current.length() - 1;
+                int end = Math.min(word.length(), Math.max(space, minWordLength));
+                if (end < c) return null;
+                var chunk = word.substring(c, end);
+                if (chunk.length() <= space) {
+                    if (c == 0 && current.length() != 0) current.append(" ");
+                    current.append(chunk);
+                } else {
+                    if (c != 0) current.append('-');
+                    current = new StringBuilder(chunk);
+                    lines.add(current);
+                }
+                c += chunk.length();
+            } while (c < word.length());
+        }
+        return lines.stream().map(StringBuilder::toString).toList();
+    }
+
     @Usage(desc = "Test command description.")
     public static class TestCommand extends AbstractHelpedCommand<Object, CommandContext<Object>> {
         @Option(names = {"-f", "--flag"}, store_true = true)
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import de.mickare.jcp.util.IntHashMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntHashMapTest {
+
+    @Test
+    void testOperations() {
+        var map = new IntHashMap<String>();
+        assertTrue(map.isEmpty());
+        assertEquals(1, map.incrementAndGet("a"));
+        assertEquals(2, map.incrementAndGet("a"));
+        assertEquals(0, map.put("b", 5));
+        assertEquals(5, map.put("b", 6));
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey("b"));
+        assertEquals(0, map.get("c"));
+        assertEquals(6, map.remove("b"));
+        assertFalse(map.containsKey("b"));
+        assertEquals(1, map.size());
+        map.clear();
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void testAgainstHashMap() {
+        var random = new Random(42);
+        var map = new IntHashMap<Integer>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int n = 0; n < 20000; ++n) {
+            int key = random.nextInt(200);
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.merge(key, 1, Integer::sum).intValue(), map.incrementAndGet(key));
+                    break;
+                case 1:
+                    assertEquals(expected.getOrDefault(key, 0).intValue(), map.remove(key));
+                    expected.remove(key);
+                    break;
+                default:
+                    assertEquals(expected.containsKey(key), map.containsKey(key));
+                    break;
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected.keySet(), map.keySet());
+        map.forEach((key, value) -> assertEquals(expected.get(key).intValue(), value));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import de.mickare.jcp.jfr.CompleteEvent;
+import de.mickare.jcp.jfr.ExecuteEvent;
+import de.mickare.jcp.jfr.HelpEvent;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfrEventTest {
+
+    @Test
+    void testEvents() throws Exception {
+        var builder = CommandPipeline.builder(SubCommandsTest.TestCommand.class, "test");
+        builder.addSubCommand(SubCommandsTest.CommandSubA.class, "a");
+        var pipeline = builder.build();
+
+        List<RecordedEvent> events = new CopyOnWriteArrayList<>();
+        var done = new CountDownLatch(1);
+        try (var stream = new RecordingStream()) {
+            stream.enable(ExecuteEvent.NAME);
+            stream.enable(CompleteEvent.NAME);
+            stream.enable(HelpEvent.NAME);
+            stream.onEvent(ExecuteEvent.NAME, events::add);
+            stream.onEvent(CompleteEvent.NAME, events::add);
+            stream.onEvent(HelpEvent.NAME, event -> {
+                events.add(event);
+                done.countDown();
+            });
+            stream.startAsync();
+
+            pipeline.execute(new Object(), new String[]{"a"});
+            assertThrows(IllegalArgumentException.class, () -> pipeline.execute(new Object(), new String[]{"b"}));
+            pipeline.complete(new Object(), "test", new ArgsTokenizer(new String[]{""}));
+            new DefaultHelpFormatter().formatHelp(pipeline);
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+        }
+
+        var executed = events.stream().filter(e -> e.getEventType().getName().equals(ExecuteEvent.NAME)).toList();
+        assertEquals(List.of("test", "test", "test a"), executed.stream().map(e -> e.getString("path")).sorted().toList());
+        var sub = executed.stream().filter(e -> e.getString("path").equals("test a")).findFirst().orElseThrow();
+        assertEquals("a", sub.getString("label"));
+        assertEquals(1, sub.getInt("tokens"));
+        assertNull(sub.getClass("exception"));
+        var failed = executed.stream().filter(e -> e.getClass("exception") != null).toList();
+        assertEquals(1, failed.size());
+        assertEquals(IllegalArgumentException.class.getName(), failed.get(0).getClass("exception").getName());
+
+        var completed = events.stream().filter(e -> e.getEventType().getName().equals(CompleteEvent.NAME)).toList();
+        assertEquals(1, completed.size());
+
+        var help = events.stream().filter(e -> e.getEventType().getName().equals(HelpEvent.NAME)).toList();
+        assertEquals(1, help.size());
+        assertEquals("formatHelp", help.get(0).getString("kind"));
+        assertTrue(help.get(0).getInt("length") > 0);
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import de.mickare.jcp.util.LruCache;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LruCacheTest {
+
+    @Test
+    void testMaximumSize() {
+        var cache = new LruCache<Integer, Integer>(100);
+        assertEquals(100, cache.getMaximumSize());
+        for (int i = 0; i < 10_000; ++i) {
+            cache.put(i, i);
+        }
+        assertEquals(100, cache.size());
+        assertEquals(9_900, cache.getEvictions());
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipelineSchemaTest {
+
+    private static CommandPipeline.Builder<TestCommand, Object, CommandContext<Object>> builder() {
+        var builder = CommandPipeline.builder(TestCommand.class, "test");
+        builder.addSubCommand(TestSubCommand.class, "sub");
+        return builder;
+    }
+
+    @Test
+    void testSchema() throws Exception {
+        var dir = Files.createTempDirectory("jcp-schema");
+        try {
+            var file = dir.resolve("test.schema");
+            var scanned = builder().buildWithSchema(file);
+            assertTrue(Files.isRegularFile(file));
+            var schema = PipelineSchema.read(file);
+            assertNotNull(schema);
+            var modified = Files.getLastModifiedTime(file);
+
+            var loaded = builder().buildWithSchema(file);
+            assertEquals(modified, Files.getLastModifiedTime(file));
+            var option = loaded.getOption("--tag");
+            assertNotNull(option);
+            var declared = option.getField().getDeclaredAnnotation(Option.class);
+            assertNotSame(declared, option.getAnnotation());
+            assertEquals(declared, option.getAnnotation());
+            assertEquals(option.getAnnotation(), declared);
+            assertEquals(declared.hashCode(), option.getAnnotation().hashCode());
+            assertEquals(scanned.getOption("--tag").getNames(), option.getNames());
+            assertEquals(scanned.getPositional().get(0).getSymbol(), loaded.getPositional().get(0).getSymbol());
+            assertEquals(List.of("sub"), List.copyOf(loaded.getSubcommands().keySet()));
+
+            var context = loaded.execute(new Object(), new String[]{"-v", "-t", "a", "--tag", "b", "file", "sub", "-x", "7"});
+            var trace = context.getTraceIfPresent(TestCommand.class);
+            assertNotNull(trace);
+            assertTrue(trace.getCommand().verbose);
+            assertEquals(List.of("a", "b"), trace.getCommand().tags);
+            assertEquals("file", trace.getCommand().file);
+            var subTrace = context.getTraceIfPresent(TestSubCommand.class);
+            assertNotNull(subTrace);
+            assertEquals(7, subTrace.getCommand().index);
+        } finally {
+            try (var files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void testLazySchema() throws Exception {
+        var dir = Files.createTempDirectory("jcp-schema");
+        try {
+            var file = dir.resolve("test.schema");
+            var first = builder().lazy(true).buildWithSchema(file);
+            assertFalse(first.getSubcommands().get("sub").isBuilt());
+            var schema = PipelineSchema.read(file);
+            assertNotNull(schema);
+            assertTrue(schema.getRoot().matches("test", TestCommand.class));
+            assertFalse(schema.getRoot().getSubcommand("sub").matches("sub", TestSubCommand.class));
+
+            // The placeholder of the lazy subcommand is replaced when it is built
+            var second = builder().lazy(true).buildWithSchema(file);
+            assertFalse(second.getSubcommands().get("sub").isBuilt());
+            second.execute(new Object(), new String[]{"file", "sub", "-x", "7"});
+            assertTrue(ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS));
+            schema = PipelineSchema.read(file);
+            assertNotNull(schema);
+            assertTrue(schema.getRoot().getSubcommand("sub").matches("sub", TestSubCommand.class));
+
+            var modified = Files.getLastModifiedTime(file);
+            var third = builder().lazy(true).buildWithSchema(file);
+            assertNotNull(third.getSubcommand("sub"));
+            assertEquals(modified, Files.getLastModifiedTime(file));
+            assertFalse(PipelineSchema.read(file).isStale());
+        } finally {
+            try (var files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void testFailedRewrite() throws Exception {
+        var dir = Files.createTempDirectory("jcp-schema");
+        var file = dir.resolve("test.schema");
+        var pipeline = builder().lazy(true).buildWithSchema(file);
+        Files.delete(file);
+        Files.delete(dir);
+
+        // The schema can not be rewritten, but the command still runs
+        var context = pipeline.execute(new Object(), new String[]{"file", "sub", "-x", "7"});
+        assertEquals(7, context.getTraceIfPresent(TestSubCommand.class).getCommand().index);
+        assertTrue(ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS));
+        assertFalse(Files.exists(dir));
+    }
+
+    @Test
+    void testCorruptSchema() throws Exception {
+        var file = Files.createTempFile("jcp-schema", ".schema");
+        try {
+            Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17});
+            assertNull(PipelineSchema.read(file));
+
+            var pipeline = builder().buildWithSchema(file);
+            assertNotNull(pipeline.getOption("-v"));
+            assertNotNull(PipelineSchema.read(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Usage(desc = "Test command description.")
+    public static class TestCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Option(names = {"-v", "--verbose"}, store_true = true, desc = "Verbose output.")
+        private boolean verbose;
+        @Option(names = {"-t", "--tag"}, repeatable = true, symbol = "TAG")
+        private List<String> tags;
+        @Argument(name = "file", symbol = "FILE", desc = "Input file.")
+        private String file;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    @Usage(desc = "Test subcommand description.")
+    public static class TestSubCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Option(names = "-x", required = true)
+        private int index;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2023 Michael Käser
+ *
+ * This file is free software: you can redistribute it and/or modify
+ * it under the terms of either the Apache License, Version 2.0 or the MIT License.
+ *
+ * You may obtain a copy of the Apache License, Version 2.0 and the MIT License at
+ * <http://www.apache.org/licenses/LICENSE-2.0> and
+ * <https://opensource.org/licenses/MIT>, respectively.
+ */
+package de.mickare.jcp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShellCompletionTest {
+
+    private static CommandPipeline<TestCommand, Object, CommandContext<Object>> pipeline() {
+        var builder = CommandPipeline.builder(TestCommand.class, "my-app");
+        builder.addSubCommand(TestSubCommand.class, "sub");
+        return builder.build();
+    }
+
+    @Test
+    void testZsh() {
+        var script = ShellCompletion.generate(pipeline(), ShellCompletion.Shell.ZSH, null);
+        assertTrue(script.startsWith("#compdef my-app\n"));
+        assertTrue(script.contains("compdef _my_app_zsh 'my-app'"));
+        assertTrue(script.contains("_my_app_add \"$cur\" 'fast' 'slow'"));
+    }
+
+    @Test
+    void testBash() throws Exception {
+        var script = ShellCompletion.generate(pipeline(), ShellCompletion.Shell.BASH, "printf '%s\\n' custom");
+        assertTrue(script.contains("complete -F _my_app_bash 'my-app'"));
+
+        var driver = script + "\n"
+                + "t() { COMP_WORDS=(my-app \"$@\"); COMP_CWORD=$#; COMPREPLY=(); _my_app_bash; echo \"${COMPREPLY[*]}\"; }\n"
+                + "t -\n"
+                + "t -v -\n"
+                + "t -t x -t y -\n"
+                + "t --mode f\n"
+                + "t -c ''\n"
+                + "t file ''\n"
+                + "t file sub fast sl\n";
+        final Process process;
+        try {
+            process = new ProcessBuilder("bash", "-c", driver).redirectErrorStream(true).start();
+        } catch (IOException e) {
+            // No bash to run the script
+            return;
+        }
+        var output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor());
+        assertEquals(List.of(
+                "-v --verbose -m --mode -t --tag -c",
+                "-m --mode -t --tag -c",
+                "-v --verbose -m --mode -t --tag -c",
+                "fast",
+                "custom -c ",
+                "sub",
+                "slow"
+        ), output.lines().toList());
+    }
+
+    public enum Mode {
+        FAST,
+        SLOW
+    }
+
+    public static class TestCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Option(names = {"-v", "--verbose"}, store_true = true)
+        private boolean verbose;
+        @Option(names = {"-m", "--mode"})
+        private Mode mode;
+        @Option(names = {"-t", "--tag"}, repeatable = true)
+        private List<String> tags;
+        @Option(names = "-c", complete = TestCompleter.class)
+        private String custom;
+        @Argument(name = "file")
+        private String file;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    public static class TestSubCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Argument(name = "modes", nargs = -1)
+        private List<Mode> modes;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    public static class TestCompleter implements ICompleter {
+        @Override
+        public List<String> complete(CommandContext<?> context, CommandPipeline.Parameter<?> param, String arg) {
+            return List.of();
+        }
+    }
+}
@@ -12,6 +12,7 @@ package de.mickare.jcp;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -67,6 +68,120 @@ public class SimpleCommandTest {
 
     }
 
+    @Test
+    void testOptionNameCollision() {
+        var builder = CommandPipeline.builder(TestCollidingOptionsCommand.class, "test");
+        assertThrows(RuntimeException.class, builder::build);
+    }
+
+    @Test
+    void testUnknownOption() {
+        var pipeline = CommandPipeline.builder(TestOptionsCommand.class, "test")
+                .build();
+        assertNotNull(pipeline.getOption("-s"));
+        assertNull(pipeline.getOption("-x"));
+        assertThrows(IllegalArgumentException.class, () -> pipeline.execute(new Object(), new String[]{"-x"}));
+    }
+
+    @Test
+    void testRequiredOptions() throws Exception {
+        var pipeline = CommandPipeline.builder(TestRequiredOptionsCommand.class, "test")
+                .build();
+        var e = assertThrows(IllegalArgumentException.class,
+                () -> pipeline.execute(new Object(), new String[]{"-b", "x"}));
+        assertEquals("Missing required option(s): first, third", e.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> pipeline.execute(new Object(), new String[]{"-a", "x", "-a", "y", "-c", "z"}));
+
+        var context = pipeline.execute(new Object(), new String[]{"-c", "z", "-a", "x"});
+        var trace = context.getTraceIfPresent(TestRequiredOptionsCommand.class);
+        assertNotNull(trace);
+        assertEquals("x", trace.getCommand().first);
+        assertEquals("z", trace.getCommand().third);
+
+        var level = pipeline.parse(new String[]{"-c", "z", "-a", "x"}).getLevels().get(0);
+        assertEquals(List.of("first", "third"),
+                level.getParameters().stream().map(param -> param.getField().getName()).toList());
+    }
+
+    @Test
+    void testFactory() throws Exception {
+        var pipeline = CommandPipeline.builder(TestInjectedCommand.class, "test")
+                .factory(() -> new TestInjectedCommand("injected"))
+                .build();
+
+        var context = pipeline.execute(new Object(), new String[]{"-s", "parsed"});
+        var trace = context.getTraceIfPresent(TestInjectedCommand.class);
+        assertNotNull(trace);
+        assertEquals("injected", trace.getCommand().dependency);
+        assertEquals("parsed", trace.getCommand().test);
+    }
+
+    @Test
+    void testParseCache() throws Exception {
+        var pipeline = CommandPipeline.builder(TestOptionsCommand.class, "test")
+                .parseCache(1)
+                .build();
+        var cache = pipeline.getParseCache();
+        assertNotNull(cache);
+        String[] args = {"-t", "-s", "cached", "-r", "1", "-r", "2"};
+
+        var first = pipeline.execute(new Object(), args).getTraceIfPresent(TestOptionsCommand.class).getCommand();
+        var second = pipeline.execute(new Object(), args).getTraceIfPresent(TestOptionsCommand.class).getCommand();
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertNotSame(first, second);
+        assertTrue(second.t);
+        assertTrue(second.f);
+        assertEquals("cached", second.test);
+        assertEquals(List.of(1, 2), second.repeated);
+        assertNotSame(first.repeated, second.repeated);
+
+        // Tokens of a raw command line are looked up without materializing them
+        var line = pipeline.execute(new Object(), ArgsTokenizer.parse("-t -s cached -r 1 -r 2"))
+                .getTraceIfPresent(TestOptionsCommand.class).getCommand();
+        assertEquals(2, cache.getHits());
+        assertEquals("cached", line.test);
+
+        var other = pipeline.execute(new Object(), new String[]{"-f"}).getTraceIfPresent(TestOptionsCommand.class).getCommand();
+        assertFalse(other.t);
+        assertFalse(other.f);
+        assertNull(other.test);
+        assertEquals(1, cache.getEvictions());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testPool() throws Exception {
+        var pipeline = CommandPipeline.builder(TestPooledCommand.class, "test")
+                .pool(1)
+                .build();
+
+        var first = pipeline.execute(new Object(), new String[]{"-s", "pooled", "-r", "1", "-r", "2"});
+        assertEquals("pooled [0, 1, 2]", first.result);
+        var items = first.items;
+        // Reset after execution
+        assertEquals("default", first.test);
+        assertEquals(List.of(0), first.items);
+
+        var second = pipeline.execute(new Object(), new String[]{"-r", "3"});
+        assertSame(first, second);
+        assertSame(items, second.items);
+        assertEquals("default [0, 3]", second.result);
+
+        // Commands in the traces of a returned context are not reused
+        var contextPipeline = CommandPipeline.builder(TestOptionsCommand.class, "test")
+                .pool(1)
+                .build();
+        var context = contextPipeline.execute(new Object(), new String[]{"-s", "first"});
+        var command = context.getTraceIfPresent(TestOptionsCommand.class).getCommand();
+        var other = contextPipeline.execute(new Object(), new String[]{"-s", "second"})
+                .getTraceIfPresent(TestOptionsCommand.class).getCommand();
+        assertNotSame(command, other);
+        assertEquals("first", command.test);
+        assertEquals("second", other.test);
+    }
+
     public static class TestOptionsCommand extends AbstractCommand<Object, CommandContext<Object>> {
         @Option(names = {"-t"}, store_true = true)
         private boolean t = false;
@@ -85,6 +200,48 @@ public class SimpleCommandTest {
         }
     }
 
+    public static class TestCollidingOptionsCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Option(names = {"-a", "--all"}, store_true = true)
+        private boolean all = false;
+        @Option(names = {"-b", "--all"}, store_true = true)
+        private boolean both = false;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    public static class TestRequiredOptionsCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        @Option(names = "-a", required = true)
+        private String first;
+        @Option(names = "-b")
+        private String second;
+        @Option(names = "-c", required = true)
+        private String third;
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
+    public static class TestInjectedCommand extends AbstractCommand<Object, CommandContext<Object>> {
+        private final String dependency;
+
+        @Option(names = "-s")
+        private String test;
+
+        public TestInjectedCommand(String dependency) {
+            this.dependency = dependency;
+        }
+
+        @Override
+        public CommandContext<Object> execute(CommandContext<Object> context) throws Exception {
+            return context;
+        }
+    }
+
     public static class TestPositionalCommand extends AbstractCommand<Object, CommandContext<Object>> {
         @Argument(name = "first")
         private boolean first1 = false;
@@ -100,4 +257,20 @@ public class SimpleCommandTest {
             return context;
         }
     }
+
+    public static class TestPooledCommand extends AbstractCommand<Object, TestPooledCommand> {
+        @Option(names = "-s")
+        private String test = "default";
+
+        @Option(names = {"-r"}, repeatable = true)
+        private List<Integer> items = new ArrayList<>(List.of(0));
+
+        private String result;
+
+        @Override
+        public TestPooledCommand execute(CommandContext<Object> context) throws Exception {
+            result = test + " " + items;
+            return this;
+        }
+    }
 }
@@ -12,8 +12,11 @@ package de.mickare.jcp;
 
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class SubCommandsTest {
 
@@ -31,6 +34,136 @@ public class SubCommandsTest {
         assertNull(context.getTraceIfPresent(CommandSubB.class));
     }
 
+    @Test
+    void testParse() throws Exception {
+        var builder = CommandPipeline.builder(TestCommand.class, "test");
+        builder.addSubCommand(CommandSubA.class, "a");
+        builder.addSubCommand(CommandSubB.class, "b");
+        var pipeline = builder.build();
+
+        var invocation = pipeline.parse(new String[]{"b"});
+        assertEquals(List.of("test", "b"), invocation.getLabels());
+        assertSame(pipeline, invocation.getPipeline());
+        assertTrue(invocation.getCommand() instanceof CommandSubB);
+
+        var first = new Object();
+        var context = invocation.execute(first);
+        assertSame(first, context.getData());
+        var executed = context.getTraceIfPresent(CommandSubB.class).getCommand();
+        assertNotSame(invocation.getCommand(), executed);
+        assertNull(context.getTraceIfPresent(CommandSubA.class));
+
+        // Every execution gets fresh command instances
+        var second = new Object();
+        context = invocation.execute(second);
+        assertSame(second, context.getData());
+        assertNotSame(executed, context.getTraceIfPresent(CommandSubB.class).getCommand());
+
+        assertThrows(IllegalArgumentException.class, () -> pipeline.parse(new String[]{"c"}));
+    }
+
+    @Test
+    void testListener() throws Exception {
+        var statistics = new PipelineStatistics();
+        var builder = CommandPipeline.builder(TestCommand.class, "test").listener(statistics);
+        builder.addSubCommand(CommandSubA.class, "a");
+        builder.addSubCommand(CommandSubB.class, "b");
+        var pipeline = builder.build();
+
+        pipeline.execute(new Object(), new String[]{"a"});
+        pipeline.execute(new Object(), new String[]{"a"});
+        assertThrows(IllegalArgumentException.class, () -> pipeline.execute(new Object(), new String[]{"c"}));
+
+        var snapshot = statistics.snapshot();
+        assertEquals(List.of("test", "test a"), List.copyOf(snapshot.keySet()));
+        var root = snapshot.get("test");
+        assertEquals(3, root.getOptions().getCount());
+        assertEquals(3, root.getPositional().getCount());
+        assertEquals(2, root.getDispatch().getCount());
+        assertEquals(0, root.getExecute().getCount());
+        assertEquals(1, root.getParseFailures());
+        var sub = snapshot.get("test a");
+        assertEquals(2, sub.getExecute().getCount());
+        assertEquals(0, sub.getDispatch().getCount());
+        assertTrue(sub.getExecute().getTotalNanos() >= sub.getExecute().getMaxNanos());
+    }
+
+    @Test
+    void testInterceptor() throws Exception {
+        List<String> calls = new ArrayList<>();
+        var builder = CommandPipeline.builder(TestCommand.class, "test")
+                .interceptor((context, level, args, next) -> {
+                    calls.add("outer " + level.getLabel());
+                    return next.proceed(context, level, args);
+                });
+        builder.addSubCommand(CommandSubA.class, "a")
+                .interceptor((context, level, args, next) -> {
+                    calls.add("inner " + level.getLabel());
+                    return next.proceed(context, level, args);
+                });
+        builder.addSubCommand(CommandSubB.class, "b")
+                .interceptor((context, level, args, next) -> {
+                    calls.add("skip " + level.getLabel());
+                    return null;
+                });
+        var pipeline = builder.build();
+
+        var context = pipeline.execute(new Object(), new String[]{"a"});
+        assertNotNull(context.getTraceIfPresent(CommandSubA.class));
+        assertEquals(List.of("outer test", "outer a", "inner a"), calls);
+
+        calls.clear();
+        assertNull(pipeline.execute(new Object(), new String[]{"b"}));
+        assertEquals(List.of("outer test", "outer b", "skip b"), calls);
+    }
+
+    @Test
+    void testLazy() throws Exception {
+        var builder = CommandPipeline.builder(TestCommand.class, "test").lazy(true);
+        builder.addSubCommand(CommandSubA.class, "a");
+        builder.addSubCommand(CommandSubB.class, "b");
+        var pipeline = builder.build();
+
+        var help = new DefaultHelpFormatter().formatHelp(pipeline);
+        assertTrue(help.contains("Commands:"));
+        var subcommands = pipeline.getSubcommands();
+        assertEquals(List.of("a", "b"), List.copyOf(subcommands.keySet()));
+        assertFalse(subcommands.get("a").isBuilt());
+        assertFalse(subcommands.get("b").isBuilt());
+
+        var context = pipeline.execute(new Object(), new String[]{"a"});
+        assertNotNull(context.getTraceIfPresent(CommandSubA.class));
+        assertTrue(subcommands.get("a").isBuilt());
+        assertFalse(subcommands.get("b").isBuilt());
+
+        var sub = pipeline.getSubcommand("a");
+        assertNotNull(sub);
+        assertSame(pipeline, sub.getParent());
+        assertEquals("test a", sub.getPath());
+        assertSame(sub, subcommands.get("a").get());
+    }
+
+    @Test
+    void testParallel() throws Exception {
+        var pool = new ForkJoinPool(4);
+        try {
+            var builder = CommandPipeline.builder(TestCommand.class, "test").parallel(pool);
+            builder.addSubCommand(CommandSubA.class, "a");
+            builder.addSubCommand(CommandSubB.class, "b");
+            var pipeline = builder.build();
+
+            assertEquals(List.of("a", "b"), List.copyOf(pipeline.getSubcommands().keySet()));
+            assertTrue(pipeline.getSubcommands().values().stream().allMatch(CommandPipeline.Subcommand::isBuilt));
+            var sub = pipeline.getSubcommand("b");
+            assertNotNull(sub);
+            assertSame(pipeline, sub.getParent());
+            assertSame(pipeline.getParserTable(), sub.getParserTable());
+            assertNotNull(pipeline.execute(new Object(), new String[]{"b"}).getTraceIfPresent(CommandSubB.class));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
     @Usage(desc = "Test command description.")
     public static class TestCommand extends AbstractCommand<Object, CommandContext<Object>> {
         @Override